@@ -1,16 +1,8 @@
 package lostinbabuland;
 
-import java.io.IOException;
-import java.nio.file.*;
-import java.util.Locale;
-
-
 // one of the main things I wanted to implement was this function because it is so much important for me to see how my games run and how it affects the system so I tried implementing this system in order to track them all and in future maybe train my modules based on it.
 
-public class AnalyticsManager {
-
-    private long sessionStartNs;
-    private long lastFrameNs;
+public class AnalyticsManager implements GameEventBus.Handler {
 
     private double elapsedSec;
     private double fps;
@@ -37,8 +29,14 @@ public class AnalyticsManager {
     private int bumps;
     private double dist;
 
-    private int actions;     // for APM
+    private int hitches;
+    private float worstHitchMs;
+
+    private SessionLogWriter sessionLog;
+
+    private int actions;     // for APM: starting to move, shots, pickups, switches, rotations
     private double idleSec;  // time without movement or shooting
+    private boolean wasMoving;
 
     private boolean underThreat;
     private double threatSec;
@@ -48,19 +46,14 @@ public class AnalyticsManager {
     private int reactionCount = 0;
 
     private int mapW, mapH;
-    private boolean[] visited;
-    private int visitedCount;
+    private final TileHeatmap tiles = new TileHeatmap();
 
     private double lastX = Double.NaN, lastY = Double.NaN;
 
     public void resetSession(int mapW, int mapH) {
         this.mapW = mapW;
         this.mapH = mapH;
-        this.visited = new boolean[mapW * mapH];
-        this.visitedCount = 0;
-
-        sessionStartNs = System.nanoTime();
-        lastFrameNs = sessionStartNs;
+        tiles.reset(mapW, mapH);
 
         elapsedSec = 0;
         fps = 0;
@@ -87,8 +80,12 @@ public class AnalyticsManager {
         bumps = 0;
         dist = 0;
 
+        hitches = 0;
+        worstHitchMs = 0;
+
         actions = 0;
         idleSec = 0;
+        wasMoving = false;
 
         underThreat = false;
         threatSec = 0;
@@ -101,23 +98,43 @@ public class AnalyticsManager {
         lastY = Double.NaN;
     }
 
-    public void onStart() {
-        sessionStartNs = System.nanoTime();
-        lastFrameNs = sessionStartNs;
+    // subscribe with sim.events().consume(analytics, ...) and it runs on its own thread off the same events
+    // StatsTracker gets. sim time is the clock then, fps/memory/hitches come in as FRAME/HITCH events from the
+    // FX shell, and each world is its own session
+    @Override
+    public void onEvent(int type, int a, int b, float x, float y) {
+        switch (type) {
+            case GameEventBus.NEW_WORLD: resetSession(a, b); break;
+            case GameEventBus.STEP:
+                elapsedSec += x;
+                if (mapW > 0) onTick(x, (b & GameEventBus.SIDE) != 0 ? "SIDE" : "TOP", a % mapW, a / mapW, y >= 8f, (b & GameEventBus.THREAT) != 0);
+                break;
+            case GameEventBus.PLAYER_MOVED: recordDistance(x); break;
+            case GameEventBus.BUMP: recordBump(); break;
+            case GameEventBus.PLAYER_SHOT: recordPlayerShot(); break;
+            case GameEventBus.ENEMY_SHOT: recordEnemyShot(); break;
+            case GameEventBus.HIT_ENEMY: recordPlayerHit(); break;
+            case GameEventBus.PLAYER_HIT: recordEnemyHit(); break;
+            case GameEventBus.CANDY: recordCandy(); break;
+            case GameEventBus.GEM: recordGem(); break;
+            case GameEventBus.SWITCH_VIEW: recordSwitch(ViewMode.values()[a].name()); break;
+            case GameEventBus.ROTATE: recordRotate(); break;
+            case GameEventBus.RUN_END: finish(a == 1); break;
+            case GameEventBus.FRAME: sampleFrame(x, y); break;
+            case GameEventBus.HITCH: recordHitch(x); break;
+            default: break;
+        }
     }
 
-    public void onFrame(double dt) {
+    private void sampleFrame(double dt, double usedMB) {
         frames++;
-        elapsedSec += dt;
 
         // fps
         double instFps = (dt > 1e-9) ? (1.0 / dt) : 0;
         fps = fps == 0 ? instFps : (fps * 0.93 + instFps * 0.07);
 
         // memory
-        Runtime rt = Runtime.getRuntime();
-        long used = rt.totalMemory() - rt.freeMemory();
-        memMB = used / 1024.0 / 1024.0;
+        memMB = usedMB;
         if (memMB > peakMemMB) peakMemMB = memMB;
     }
 
@@ -145,23 +162,19 @@ public class AnalyticsManager {
         // mark visited tile
         int tx = (int)Math.floor(px);
         int ty = (int)Math.floor(py);
-        markVisited(tx, ty);
+        markVisited(tx, ty, dt);
 
+        // holding a direction is one action, not one per tick (that would be ~3600 APM)
+        if (moving && !wasMoving) startedMoving();
+        wasMoving = moving;
 
         if (!threatNow) threatStartSec = -1;
     }
 
-    public void recordMove(double dt, double px, double py, int tx, int ty) {
-        markVisited(tx, ty);
-        actions++; // movement counts as action in APM (coarse)
-        if (threatStartSec >= 0) {
-            double rt = elapsedSec - threatStartSec;
-            if (rt >= 0.08 && rt <= 5.0) {
-                reactionSum += rt;
-                reactionCount++;
-                threatStartSec = -1;
-            }
-        }
+    // first tick of a move. counts for APM and, under threat, as the reaction just like a shot does
+    private void startedMoving() {
+        actions++;
+        reacted();
     }
 
     public void recordDistance(double d) {
@@ -181,13 +194,17 @@ public class AnalyticsManager {
     public void recordPlayerShot() {
         playerShots++;
         actions++;
-        if (threatStartSec >= 0) {
-            double rt = elapsedSec - threatStartSec;
-            if (rt >= 0.08 && rt <= 5.0) {
-                reactionSum += rt;
-                reactionCount++;
-                threatStartSec = -1;
-            }
+        reacted();
+    }
+
+    // first shot or move after a threat shows up, anything under 80 ms is the player already doing it
+    private void reacted() {
+        if (threatStartSec < 0) return;
+        double rt = elapsedSec - threatStartSec;
+        if (rt >= 0.08 && rt <= 5.0) {
+            reactionSum += rt;
+            reactionCount++;
+            threatStartSec = -1;
         }
     }
 
@@ -217,118 +234,64 @@ public class AnalyticsManager {
         bumps++;
     }
 
-    public void finish(boolean won) {
-
+    // one late pulse during this session (HitchDetector via the bus), goes into the session row
+    public void recordHitch(float ms) {
+        hitches++;
+        worstHitchMs = Math.max(worstHitchMs, ms);
     }
 
-    public String[] hudLines(int score, int hp, int enemiesAlive, int collectiblesLeft, int camRot) {
-        double apm = elapsedSec > 1 ? (actions / (elapsedSec / 60.0)) : 0;
+    public void logTo(SessionLogWriter log) { this.sessionLog = log; }
 
-        double explore = (mapW * mapH > 0) ? (visitedCount * 100.0 / (double)(mapW * mapH)) : 0;
-
-        double pAcc = (playerShots > 0) ? (playerHits * 100.0 / playerShots) : 0;
-        double eAcc = (enemyShots > 0) ? (enemyHits * 100.0 / enemyShots) : 0;
-
-        double topPct = (elapsedSec > 1e-6) ? (topTimeSec * 100.0 / elapsedSec) : 0;
-        double sidePct = (elapsedSec > 1e-6) ? (sideTimeSec * 100.0 / elapsedSec) : 0;
+    public void finish(boolean won) {
+        if (sessionLog != null && mapW > 0) saveSession(sessionLog, won); // mapW 0: joined mid-run
+    }
 
-        double threatPct = (elapsedSec > 1e-6) ? (threatSec * 100.0 / elapsedSec) : 0;
-        double idlePct = (elapsedSec > 1e-6) ? (idleSec * 100.0 / elapsedSec) : 0;
+    // game-over cost is filling one record and queueing 152 bytes, the writer thread does the IO
+    public void saveSession(SessionLogWriter log, boolean won) {
+        SessionRecord r = new SessionRecord();
+        r.timestamp = System.currentTimeMillis();
+        r.won = won;
+        r.elapsedSec = elapsedSec;
+        r.fps = fps;
+        r.memPeakMB = peakMemMB;
+        r.topSec = topTimeSec;
+        r.sideSec = sideTimeSec;
+        r.switches = switches;
+        r.rotations = rotations;
+        r.playerShots = playerShots;
+        r.playerHits = playerHits;
+        r.enemyShots = enemyShots;
+        r.enemyHits = enemyHits;
+        r.candies = candies;
+        r.gems = gems;
+        r.bumps = bumps;
+        r.distance = dist;
+        r.actions = actions;
+        r.apm = elapsedSec > 1 ? (actions / (elapsedSec / 60.0)) : 0;
+        r.threatSec = threatSec;
+        r.idleSec = idleSec;
+        r.explorePct = (mapW * mapH > 0) ? (tiles.visitedCount() * 100.0 / (double)(mapW * mapH)) : 0;
+        r.avgReactionSec = (reactionCount > 0) ? (reactionSum / reactionCount) : -1;
+        r.hitches = hitches;
+        r.worstHitchMs = worstHitchMs;
+        log.append(r);
+    }
 
-        double avgRt = (reactionCount > 0) ? (reactionSum / reactionCount) : -1;
+    private void markVisited(int tx, int ty, double dt) {
+        if (tx < 0 || ty < 0 || tx >= mapW || ty >= mapH) return;
+        tiles.visit(ty * mapW + tx, (float)dt);
+    }
 
+    public TileHeatmap tiles() { return tiles; }
 
+    // 0..100 from percentages and APM. SessionAnalyzer recomputes it from saved rows, keep them in sync
+    static double skill(double accuracyPct, double explorePct, double apm, double idlePct) {
         double skill = 0;
-        skill += clamp01(pAcc / 100.0) * 40;
-        skill += clamp01(explore / 100.0) * 25;
+        skill += clamp01(accuracyPct / 100.0) * 40;
+        skill += clamp01(explorePct / 100.0) * 25;
         skill += clamp01((apm / 60.0)) * 20;
         skill += clamp01((1.0 - idlePct / 100.0)) * 15;
-        int skillInt = (int)Math.round(skill);
-
-        String l1 = String.format(Locale.US,
-                "t=%.0fs  fps=%.1f  mem=%.1fMB (peak %.1fMB)  APM=%.1f  skill=%d",
-                elapsedSec, fps, memMB, peakMemMB, apm, skillInt);
-
-        String l2 = String.format(Locale.US,
-                "P shots %d/%d (%.0f%%) | E shots %d/%d (%.0f%%) | explore %.0f%% | idle %.0f%% | threat %.0f%%",
-                playerHits, playerShots, pAcc,
-                enemyHits, enemyShots, eAcc,
-                explore, idlePct, threatPct);
-
-        String l3 = String.format(Locale.US,
-                "dist=%.0f  switches=%d  rot=%d  candies=%d  gems=%d  bumps=%d  TOP/SIDE=%.0f/%.0f%%  rt=%s",
-                dist, switches, rotations, candies, gems, bumps,
-                topPct, sidePct,
-                (avgRt < 0 ? "-" : String.format(Locale.US, "%.2fs", avgRt))
-        );
-
-        return new String[]{l1, l2, l3};
-    }
-
-    public String[] panelLines() {
-        double pAcc = (playerShots > 0) ? (playerHits * 100.0 / playerShots) : 0;
-        double eAcc = (enemyShots > 0) ? (enemyHits * 100.0 / enemyShots) : 0;
-        double avgRt = (reactionCount > 0) ? (reactionSum / reactionCount) : -1;
-
-        return new String[] {
-                String.format(Locale.US, "Shots: P=%d (hit %d, %.0f%%)  E=%d (hit %d, %.0f%%)", playerShots, playerHits, pAcc, enemyShots, enemyHits, eAcc),
-                String.format(Locale.US, "Switches=%d  Rotations=%d  Bumps=%d", switches, rotations, bumps),
-                String.format(Locale.US, "Candy=%d  Gems=%d  Distance=%.0f", candies, gems, dist),
-                String.format(Locale.US, "Threat=%.0fs  Idle=%.0fs  AvgRT=%s", threatSec, idleSec, (avgRt < 0 ? "-" : String.format(Locale.US, "%.2fs", avgRt))),
-                String.format(Locale.US, "ExploredTiles=%d/%d", visitedCount, mapW * mapH),
-        };
-    }
-
-    public void saveSession(Path file, boolean won) {
-        String header = "timestamp,won,elapsed_sec,fps_avg,mem_peak_mb,view_top_sec,view_side_sec,switches,rotations," +
-                "player_shots,player_hits,enemy_shots,enemy_hits,candies,gems,bumps,distance,actions,apm,threat_sec,idle_sec,explore_pct,avg_reaction_sec\n";
-
-        double apm = elapsedSec > 1 ? (actions / (elapsedSec / 60.0)) : 0;
-        double explorePct = (mapW * mapH > 0) ? (visitedCount * 100.0 / (double)(mapW * mapH)) : 0;
-        double avgRt = (reactionCount > 0) ? (reactionSum / reactionCount) : -1;
-
-        String row = String.format(Locale.US,
-                "%d,%s,%.3f,%.3f,%.3f,%.3f,%.3f,%d,%d,%d,%d,%d,%d,%d,%d,%d,%.3f,%d,%.3f,%.3f,%.3f,%.2f,%s\n",
-                System.currentTimeMillis(),
-                won ? "true" : "false",
-                elapsedSec,
-                fps,
-                peakMemMB,
-                topTimeSec,
-                sideTimeSec,
-                switches,
-                rotations,
-                playerShots,
-                playerHits,
-                enemyShots,
-                enemyHits,
-                candies,
-                gems,
-                bumps,
-                dist,
-                actions,
-                apm,
-                threatSec,
-                idleSec,
-                explorePct,
-                (avgRt < 0 ? "" : String.format(Locale.US, "%.3f", avgRt))
-        );
-
-        try {
-            boolean exists = Files.exists(file);
-            if (!exists) Files.writeString(file, header, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
-            Files.writeString(file, row, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
-        } catch (IOException ignored) {
-        }
-    }
-
-    private void markVisited(int tx, int ty) {
-        if (tx < 0 || ty < 0 || tx >= mapW || ty >= mapH) return;
-        int idx = ty * mapW + tx;
-        if (!visited[idx]) {
-            visited[idx] = true;
-            visitedCount++;
-        }
+        return skill;
     }
 
     private static double clamp01(double v) {
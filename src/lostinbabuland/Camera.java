@@ -1,4 +1,3 @@
-
 package lostinbabuland;
 
 public final class Camera {
@@ -6,28 +5,36 @@ public final class Camera {
     public float offX = 0f;
     public float offY = 0f;
 
+    // tiles that can land on screen (inclusive), set by fitToView/follow
+    public int minTx, minTy, maxTx, maxTy;
+
     public interface Projector {
-        // returns float[2] screen-space coordinates for world point
-        float[] project(float wx, float wy);
+        float projectX(float wx, float wy);
+        float projectY(float wx, float wy);
+
+        // packed [x0,y0, x1,y1, ...] world points into out (same packing), out may be xy itself
+        void projectBatch(float[] xy, float[] out, int count);
+
+        // returns float[2] screen-space coordinates for world point (allocates, fine outside the frame loop)
+        default float[] project(float wx, float wy) {
+            return new float[]{ projectX(wx, wy), projectY(wx, wy) };
+        }
     }
 
     public void fitToView(Projector proj, float viewW, float viewH, World world) {
         // Project the rectangle corners of world bounds and fit inside view.
-        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
-        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
-
         float W = world.w * GameConfig.TILE;
         float H = world.h * GameConfig.TILE;
 
-        float[][] corners = {
-                {0,0}, {W,0}, {0,H}, {W,H}
-        };
+        float x0 = proj.projectX(0, 0), y0 = proj.projectY(0, 0);
+        float x1 = proj.projectX(W, 0), y1 = proj.projectY(W, 0);
+        float x2 = proj.projectX(0, H), y2 = proj.projectY(0, H);
+        float x3 = proj.projectX(W, H), y3 = proj.projectY(W, H);
 
-        for (float[] c : corners) {
-            float[] p = proj.project(c[0], c[1]);
-            minX = Math.min(minX, p[0]); minY = Math.min(minY, p[1]);
-            maxX = Math.max(maxX, p[0]); maxY = Math.max(maxY, p[1]);
-        }
+        float minX = Math.min(Math.min(x0, x1), Math.min(x2, x3));
+        float maxX = Math.max(Math.max(x0, x1), Math.max(x2, x3));
+        float minY = Math.min(Math.min(y0, y1), Math.min(y2, y3));
+        float maxY = Math.max(Math.max(y0, y1), Math.max(y2, y3));
 
         float bw = Math.max(1f, maxX - minX);
         float bh = Math.max(1f, maxY - minY);
@@ -43,8 +50,54 @@ public final class Camera {
 
         offX = viewW * 0.5f - cx * scale;
         offY = viewH * 0.5f - cy * scale;
+
+        minTx = 0; minTy = 0;
+        maxTx = world.w - 1; maxTy = world.h - 1;
+    }
+
+    // centre the view on a world point at a fixed zoom, then work out which tiles are visible
+    public void follow(Projection.Affine proj, float viewW, float viewH, World world, float wx, float wy, float zoom) {
+        scale = zoom;
+        offX = viewW * 0.5f - proj.projectX(wx, wy) * scale;
+        offY = viewH * 0.5f - proj.projectY(wx, wy) * scale;
+
+        // viewport corners back to world space. rotated SIDE views make that a rhombus, we keep its bounding box
+        float px0 = -offX / scale, py0 = -offY / scale;
+        float px1 = (viewW - offX) / scale, py1 = (viewH - offY) / scale;
+
+        float ax = proj.unprojectX(px0, py0), ay = proj.unprojectY(px0, py0);
+        float bx = proj.unprojectX(px1, py0), by = proj.unprojectY(px1, py0);
+        float cx = proj.unprojectX(px0, py1), cy = proj.unprojectY(px0, py1);
+        float dx = proj.unprojectX(px1, py1), dy = proj.unprojectY(px1, py1);
+
+        float minX = Math.min(Math.min(ax, bx), Math.min(cx, dx));
+        float maxX = Math.max(Math.max(ax, bx), Math.max(cx, dx));
+        float minY = Math.min(Math.min(ay, by), Math.min(cy, dy));
+        float maxY = Math.max(Math.max(ay, by), Math.max(cy, dy));
+
+        // SIDE walls are drawn a tile above their base, pad so they don't pop at the edges
+        int pad = 2;
+        minTx = Math.max(0, (int)Math.floor(minX / GameConfig.TILE) - pad);
+        minTy = Math.max(0, (int)Math.floor(minY / GameConfig.TILE) - pad);
+        maxTx = Math.min(world.w - 1, (int)Math.floor(maxX / GameConfig.TILE) + pad);
+        maxTy = Math.min(world.h - 1, (int)Math.floor(maxY / GameConfig.TILE) + pad);
+    }
+
+    public boolean visible(float wx, float wy) {
+        int tx = (int)Math.floor(wx / GameConfig.TILE);
+        int ty = (int)Math.floor(wy / GameConfig.TILE);
+        return tx >= minTx && tx <= maxTx && ty >= minTy && ty <= maxTy;
     }
 
     public float sx(float px) { return px * scale + offX; }
     public float sy(float py) { return py * scale + offY; }
-}
\ No newline at end of file
+
+    // projected points -> screen pixels in place, originX/Y is where the view sits on the canvas
+    public void toScreen(float[] xy, int count, float originX, float originY) {
+        float ox = offX + originX, oy = offY + originY;
+        for (int i = 0, n = count*2; i < n; i += 2) {
+            xy[i]   = xy[i]   * scale + ox;
+            xy[i+1] = xy[i+1] * scale + oy;
+        }
+    }
+}
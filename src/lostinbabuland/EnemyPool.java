@@ -0,0 +1,263 @@
+package lostinbabuland;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// all enemies as parallel arrays instead of one object each. dead slots get swap-removed in compact()
+// so every loop (think, render, bullet hits) runs over a dense 0..size() range
+
+public final class EnemyPool {
+    private int count = 0;
+
+    private float[] x = new float[16];
+    private float[] y = new float[16];
+    private float[] pathTimer = new float[16];
+    private float[] shootTimer = new float[16];
+    private int[] pathIndex = new int[16];
+    private boolean[] alive = new boolean[16];
+    private IntList[] paths = new IntList[16]; // reused per slot, swapped along with the slot
+
+    private final float r = GameConfig.ENEMY_RADIUS;
+    private final IntList neighbours = new IntList(8);
+
+    public int size() { return count; }
+    public float x(int i) { return x[i]; }
+    public float y(int i) { return y[i]; }
+    public float r() { return r; }
+    public boolean alive(int i) { return alive[i]; }
+
+    public void clear() { count = 0; }
+
+    // timers come from the world rng, not Math.random, so a seed replays exactly
+    public void spawn(float px, float py, Random rng) {
+        if (count == x.length) grow(count * 2);
+        int i = count++;
+        x[i] = px;
+        y[i] = py;
+        pathTimer[i] = rng.nextFloat() * 0.4f;
+        shootTimer[i] = rng.nextFloat() * 0.6f;
+        pathIndex[i] = 0;
+        alive[i] = true;
+        if (paths[i] == null) paths[i] = new IntList(64);
+        paths[i].clear();
+    }
+
+    // slot stays put until compact() so ids handed out this step (spatial hash) stay valid
+    public void kill(int i) { alive[i] = false; }
+
+    public void compact() {
+        int i = 0;
+        while (i < count) {
+            if (alive[i]) { i++; continue; }
+            int last = --count;
+            if (i != last) {
+                x[i] = x[last];
+                y[i] = y[last];
+                pathTimer[i] = pathTimer[last];
+                shootTimer[i] = shootTimer[last];
+                pathIndex[i] = pathIndex[last];
+                alive[i] = alive[last];
+                IntList p = paths[i]; paths[i] = paths[last]; paths[last] = p;
+            }
+        }
+    }
+
+    public void rebuildGrid(SpatialHash grid) {
+        grid.clear();
+        for (int i = 0; i < count; i++) if (alive[i]) grid.insert(i, x[i], y[i]);
+    }
+
+    public void update(float dt) {
+        for (int i = 0; i < count; i++) {
+            pathTimer[i] = Math.max(0f, pathTimer[i] - dt);
+            shootTimer[i] = Math.max(0f, shootTimer[i] - dt);
+        }
+    }
+
+    // one ENEMIES_MOVED for the whole pool, not one event per enemy
+    public void thinkAll(World world, Player player, FlowField flow, float dt, SpatialHash grid, ProjectileSystem projectiles, GameEventBus events) {
+        float moved = 0f;
+        for (int i = 0; i < count; i++) moved += think(i, world, player, flow, dt, grid, projectiles, events);
+        events.publish(GameEventBus.ENEMIES_MOVED, moved);
+    }
+
+    // returns how far the enemy moved
+    private float think(int i, World world, Player player, FlowField flow, float dt, SpatialHash grid, ProjectileSystem projectiles, GameEventBus events) {
+        if (!alive[i]) return 0f;
+
+        float ex = x[i], ey = y[i];
+        float dxp = player.x - ex, dyp = player.y - ey;
+        float dist = MathUtil.len(dxp, dyp);
+
+        boolean chasing = dist < 330f;
+
+        int sx = world.toTileX(ex), sy = world.toTileY(ey);
+        IntList path = paths[i];
+
+        // chasers follow the shared flow field, no per-enemy search
+        int chaseNext = -1;
+        if (chasing) {
+            chaseNext = flow.nextStep(sx, sy);
+            pathTimer[i] = 0f; // re-plan wander as soon as we lose the player
+        } else if (pathTimer[i] <= 0f) {
+            pathTimer[i] = 0.7f;
+
+            // pick a reachable floor target straight from the world's region index, one search per re-plan
+            int t = world.randomReachableTile(sx, sy, 8, world.rng);
+            pathIndex[i] = 0;
+            path.clear();
+            if (t >= 0) {
+                Pathfinder.find(GameConfig.WANDER_PATH_ALGO, world, world.paths, sx, sy, t % world.w, t / world.w, GameConfig.WANDER_MAX_NODES, path);
+            }
+        }
+
+        // desired direction
+        float ddx = 0f, ddy = 0f;
+        if (chasing) {
+            if (chaseNext >= 0) {
+                ddx = world.tileCenterX(chaseNext % world.w) - ex;
+                ddy = world.tileCenterY(chaseNext / world.w) - ey;
+            } else {
+                ddx = dxp; ddy = dyp;
+            }
+        } else if (pathIndex[i] < path.size()) {
+            int node = path.get(pathIndex[i]);
+            float tx = world.tileCenterX(node % world.w);
+            float ty = world.tileCenterY(node / world.w);
+            float dd = MathUtil.len(tx - ex, ty - ey);
+            if (dd < 8f) pathIndex[i]++;
+            ddx = tx - ex;
+            ddy = ty - ey;
+        }
+
+        float ndx = MathUtil.normX(ddx, ddy);
+        float ndy = MathUtil.normY(ddx, ddy);
+
+        // separation, only against enemies bucketed near us
+        float sepX = 0f, sepY = 0f;
+        float range = GameConfig.ENEMY_SEPARATION;
+        grid.queryRadius(ex, ey, range, neighbours);
+        for (int k = 0; k < neighbours.size(); k++) {
+            int o = neighbours.get(k);
+            if (o == i || !alive[o]) continue;
+            float ox = ex - x[o], oy = ey - y[o];
+            float d = MathUtil.len(ox, oy);
+            if (d < 1e-3f) continue;
+            if (d < range) {
+                float s = (range - d) / range;
+                sepX += (ox / d) * s;
+                sepY += (oy / d) * s;
+            }
+        }
+
+        float dirX = ndx + sepX * 0.9f;
+        float dirY = ndy + sepY * 0.9f;
+
+        dirX = MathUtil.normX(dirX, dirY);
+        dirY = MathUtil.normY(dirX, dirY);
+
+        float stepX = dirX * GameConfig.ENEMY_SPEED * dt;
+        float stepY = dirY * GameConfig.ENEMY_SPEED * dt;
+
+        // collision move
+        float oldX = ex, oldY = ey;
+
+        ex += stepX;
+        if (collides(world, ex, ey)) ex = resolveX(world, ex, ey, stepX);
+
+        ey += stepY;
+        if (collides(world, ex, ey)) ey = resolveY(world, ex, ey, stepY);
+
+        x[i] = ex;
+        y[i] = ey;
+
+        // shoot if line-of-sight and in range
+        if (chasing && dist < 290f && shootTimer[i] <= 0f && Collision.lineOfSight(world, ex, ey, player.x, player.y)) {
+            shootTimer[i] = GameConfig.ENEMY_FIRE_COOLDOWN;
+            float bx = MathUtil.normX(dxp, dyp);
+            float by = MathUtil.normY(dxp, dyp);
+            projectiles.spawnEnemyBullet(ex + bx*(r+6f), ey + by*(r+6f), bx, by);
+            events.publish(GameEventBus.ENEMY_SHOT);
+        }
+
+        return MathUtil.len(ex-oldX, ey-oldY);
+    }
+
+    // same tests as Collision.nearbyTiles + circleIntersectsTile, minus the per-call tile list
+    private boolean collides(World world, float cx, float cy) {
+        int minTx = Math.max(0, (int)Math.floor((cx - r) / GameConfig.TILE));
+        int maxTx = Math.min(world.w - 1, (int)Math.floor((cx + r) / GameConfig.TILE));
+        int minTy = Math.max(0, (int)Math.floor((cy - r) / GameConfig.TILE));
+        int maxTy = Math.min(world.h - 1, (int)Math.floor((cy + r) / GameConfig.TILE));
+        for (int ty = minTy; ty <= maxTy; ty++) {
+            for (int tx = minTx; tx <= maxTx; tx++) {
+                if (Collision.circleIntersectsTile(world, cx, cy, r, tx, ty)) return true;
+            }
+        }
+        return false;
+    }
+
+    private float resolveX(World world, float cx, float cy, float step) {
+        int minTx = Math.max(0, (int)Math.floor((cx - r) / GameConfig.TILE));
+        int maxTx = Math.min(world.w - 1, (int)Math.floor((cx + r) / GameConfig.TILE));
+        int minTy = Math.max(0, (int)Math.floor((cy - r) / GameConfig.TILE));
+        int maxTy = Math.min(world.h - 1, (int)Math.floor((cy + r) / GameConfig.TILE));
+        for (int ty = minTy; ty <= maxTy; ty++) {
+            for (int tx = minTx; tx <= maxTx; tx++) {
+                if (!world.isSolid(tx, ty)) continue;
+                float left = tx * GameConfig.TILE;
+                float right = left + GameConfig.TILE;
+                float top = ty * GameConfig.TILE;
+                float bottom = top + GameConfig.TILE;
+
+                float closestY = MathUtil.clamp(cy, top, bottom);
+                float dy = cy - closestY;
+                if (dy*dy > r*r) continue;
+
+                if (step > 0) {
+                    if (cx + r > left && cx < left) cx = left - r;
+                } else if (step < 0) {
+                    if (cx - r < right && cx > right) cx = right + r;
+                }
+            }
+        }
+        return cx;
+    }
+
+    private float resolveY(World world, float cx, float cy, float step) {
+        int minTx = Math.max(0, (int)Math.floor((cx - r) / GameConfig.TILE));
+        int maxTx = Math.min(world.w - 1, (int)Math.floor((cx + r) / GameConfig.TILE));
+        int minTy = Math.max(0, (int)Math.floor((cy - r) / GameConfig.TILE));
+        int maxTy = Math.min(world.h - 1, (int)Math.floor((cy + r) / GameConfig.TILE));
+        for (int ty = minTy; ty <= maxTy; ty++) {
+            for (int tx = minTx; tx <= maxTx; tx++) {
+                if (!world.isSolid(tx, ty)) continue;
+                float left = tx * GameConfig.TILE;
+                float right = left + GameConfig.TILE;
+                float top = ty * GameConfig.TILE;
+                float bottom = top + GameConfig.TILE;
+
+                float closestX = MathUtil.clamp(cx, left, right);
+                float dx = cx - closestX;
+                if (dx*dx > r*r) continue;
+
+                if (step > 0) {
+                    if (cy + r > top && cy < top) cy = top - r;
+                } else if (step < 0) {
+                    if (cy - r < bottom && cy > bottom) cy = bottom + r;
+                }
+            }
+        }
+        return cy;
+    }
+
+    private void grow(int n) {
+        x = Arrays.copyOf(x, n);
+        y = Arrays.copyOf(y, n);
+        pathTimer = Arrays.copyOf(pathTimer, n);
+        shootTimer = Arrays.copyOf(shootTimer, n);
+        pathIndex = Arrays.copyOf(pathIndex, n);
+        alive = Arrays.copyOf(alive, n);
+        paths = Arrays.copyOf(paths, n);
+    }
+}
@@ -0,0 +1,67 @@
+package lostinbabuland;
+
+import java.util.Arrays;
+
+// one BFS outward from the player, shared by every chaser. enemies just walk downhill so it's O(1) each
+
+public final class FlowField {
+    public static final int UNREACHABLE = -1;
+
+    private World world;
+    private int goalTx = -1, goalTy = -1;
+
+    private int[] dist = new int[0];
+    private int[] queue = new int[0];
+
+    // rebuilds only when the player changes tile (or we got a new world)
+    public void update(World world, int gx, int gy) {
+        if (world == this.world && gx == goalTx && gy == goalTy) return;
+        this.world = world;
+        this.goalTx = gx;
+        this.goalTy = gy;
+
+        int w = world.w, h = world.h;
+        if (dist.length != w*h) {
+            dist = new int[w*h];
+            queue = new int[w*h];
+        }
+        Arrays.fill(dist, UNREACHABLE);
+
+        if (!world.inBounds(gx, gy) || world.isSolid(gx, gy)) return;
+
+        int head = 0, tail = 0;
+        int start = gy*w + gx;
+        dist[start] = 0;
+        queue[tail++] = start;
+
+        while (head < tail) {
+            int idx = queue[head++];
+            int x = idx % w, y = idx / w;
+            int d = dist[idx] + 1;
+
+            if (x+1 < w  && dist[idx+1] == UNREACHABLE && !world.isSolid(x+1, y)) { dist[idx+1] = d; queue[tail++] = idx+1; }
+            if (x-1 >= 0 && dist[idx-1] == UNREACHABLE && !world.isSolid(x-1, y)) { dist[idx-1] = d; queue[tail++] = idx-1; }
+            if (y+1 < h  && dist[idx+w] == UNREACHABLE && !world.isSolid(x, y+1)) { dist[idx+w] = d; queue[tail++] = idx+w; }
+            if (y-1 >= 0 && dist[idx-w] == UNREACHABLE && !world.isSolid(x, y-1)) { dist[idx-w] = d; queue[tail++] = idx-w; }
+        }
+    }
+
+    public int distance(int tx, int ty) {
+        if (world == null || !world.inBounds(tx, ty)) return UNREACHABLE;
+        return dist[ty*world.w + tx];
+    }
+
+    // packed tile index (y*w + x) of the neighbour one step closer to the player, or -1
+    public int nextStep(int tx, int ty) {
+        int d = distance(tx, ty);
+        if (d <= 0) return -1;
+
+        int w = world.w;
+        int idx = ty*w + tx;
+        if (tx+1 < w       && dist[idx+1] == d-1) return idx+1;
+        if (tx-1 >= 0      && dist[idx-1] == d-1) return idx-1;
+        if (ty+1 < world.h && dist[idx+w] == d-1) return idx+w;
+        if (ty-1 >= 0      && dist[idx-w] == d-1) return idx-w;
+        return -1;
+    }
+}
@@ -0,0 +1,85 @@
+package lostinbabuland;
+
+import java.util.Arrays;
+
+// per-phase nanoTime samples for the last HISTORY frames, for the F3 overlay
+// off by default: begin() returns 0 without reading the clock and end() returns straight away,
+// so leaving the calls in the sim costs one branch each. no JavaFX here, HudRenderer draws it
+
+public final class FrameProfiler {
+    public static final int INPUT = 0;
+    public static final int PLAYER = 1;
+    public static final int ENEMIES = 2;
+    public static final int PROJECTILES = 3;
+    public static final int PICKUPS = 4;
+    public static final int RENDER_WORLD = 5;
+    public static final int RENDER_HUD = 6;
+    public static final int FRAME = 7;
+    public static final int PHASES = 8;
+
+    public static final String[] NAMES = { "input", "player", "enemies", "projectiles", "pickups", "render world", "render hud", "frame" };
+
+    public static final int HISTORY = 240;
+
+    private final long[][] samples = new long[PHASES][HISTORY];
+    private final long[] current = new long[PHASES]; // sim phases can run several ticks per frame, they add up here
+    private final long[] sorted = new long[HISTORY];
+    private int head = 0;
+    private int filled = 0;
+    private long frames = 0;
+    private boolean enabled = false;
+
+    public boolean enabled() { return enabled; }
+    public int filled() { return filled; }
+    public long frames() { return frames; }
+
+    public void toggle() {
+        enabled = !enabled;
+        if (enabled) {
+            Arrays.fill(current, 0);
+            head = 0;
+            filled = 0;
+        }
+    }
+
+    public long begin() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public void end(int phase, long t0) {
+        if (!enabled) return;
+        current[phase] += System.nanoTime() - t0;
+    }
+
+    public void endFrame() {
+        if (!enabled) return;
+        for (int p = 0; p < PHASES; p++) {
+            samples[p][head] = current[p];
+            current[p] = 0;
+        }
+        head = (head + 1) % HISTORY;
+        if (filled < HISTORY) filled++;
+        frames++;
+    }
+
+    // i-th oldest sample still in the ring
+    public long sample(int phase, int i) {
+        return samples[phase][(head - filled + i + HISTORY) % HISTORY];
+    }
+
+    // nearest-rank percentile over what's in the ring, q in 0..1
+    public long percentile(int phase, double q) {
+        if (filled == 0) return 0;
+        int n = filled;
+        for (int i = 0; i < n; i++) sorted[i] = sample(phase, i);
+        Arrays.sort(sorted, 0, n);
+        int rank = (int)Math.ceil(q * n) - 1;
+        return sorted[Math.max(0, Math.min(n - 1, rank))];
+    }
+
+    public long max(int phase) {
+        long m = 0;
+        for (int i = 0; i < filled; i++) m = Math.max(m, sample(phase, i));
+        return m;
+    }
+}
@@ -23,6 +23,9 @@ public final class GameConfig {
     public static final float ENEMY_SPEED = 130f;
     public static final float BULLET_SPEED = 420f;
 
+    // bullet pool size, shots past this are dropped and counted
+    public static final int BULLET_CAPACITY = 16384;
+
     public static final float PLAYER_FIRE_COOLDOWN = 0.16f;
     public static final float ENEMY_FIRE_COOLDOWN = 0.9f;
 
@@ -35,17 +38,82 @@ public final class GameConfig {
     // max sim steps per rendered frame
     public static final int MAX_STEPS_PER_FRAME = 8;
 
+    // writes replays/replay-<seed>.bin (seed + input per tick), play back with ReplayRunner
+    public static final boolean RECORD_REPLAYS = false;
+    public static final int REPLAY_HASH_INTERVAL = 60;
+
     public static final int INITIAL_HP = 3;
 
     public static final int ENEMY_COUNT_MIN = 7;
     public static final int ENEMY_COUNT_MAX = 11;
 
+    // stress mode: a much bigger map packed with enemies
+    public static final boolean HORDE_MODE = false;
+    public static final int HORDE_ENEMY_COUNT = 5000;
+    public static final int HORDE_WORLD_W = 320;
+    public static final int HORDE_WORLD_H = 200;
+
     public static final int CANDY_COUNT = 18;
     public static final int GEM_COUNT = 8;
     public static final int HOLE_COUNT = 4;
 
     public static final float THREAT_RADIUS = 210f;
 
+    public static final float ENEMY_SEPARATION = 30f;
+
+    // bucket size for the spatial hash, big enough that separation/bullet checks touch at most 2x2 cells
+    public static final float SPATIAL_CELL = TILE * 2f;
+
+    // wander re-plans. JPS expands the fewest nodes but scans more tiles, on this cluttered map A* is about as fast
+    public static final PathAlgorithm WANDER_PATH_ALGO = PathAlgorithm.ASTAR;
+    public static final int WANDER_MAX_NODES = 16000;
+
+    // gameplay event ring. StatsTracker drains it every tick so this only has to hold one tick's events
+    public static final int EVENT_BUS_CAPACITY = 1 << 14;
+
+    // playfield render targets, F2 cycles. 0 = native (draw straight to the window canvas), the others are the
+    // default 1280x600 playfield at 1/2 and 1/4 resolution, upscaled by whole pixels
+    public static final int[] RENDER_W = { 0, 640, 320 };
+    public static final int[] RENDER_H = { 0, 300, 150 };
+    public static final int RENDER_TARGET = 0;
+
+    // skip redraws when the frame would come out identical, and drop to a slow pulse once nothing has changed
+    // for a while (kiosk machines idling on the help screen). any key press wakes it straight back up
+    public static final boolean RENDER_ON_DEMAND = true;
+    public static final int IDLE_AFTER_FRAMES = 30;
+    public static final int IDLE_PULSE_HZ = 15;
+
+    // write heatmaps/heatmap-<seed>-<run>.csv (per-tile dwell/hits/shots/deaths) whenever a run ends
+    public static final boolean EXPORT_HEATMAPS = false;
+
+    // append one record per finished run to sessions/sessions.bin (SessionAnalyzer / SessionLogCsv read it)
+    // analytics runs off the sim's event bus on its own thread, so this costs the frame nothing
+    public static final boolean SESSION_LOG = false;
+
+    // a pulse arriving later than this counts as a hitch (two 60 Hz frames). HITCH_LOG appends them to
+    // hitches/hitches.csv, which rolls over to hitches.csv.old past HITCH_LOG_MAX_BYTES
+    public static final float HITCH_MS = 34f;
+    public static final boolean HITCH_LOG = false;
+    public static final long HITCH_LOG_MAX_BYTES = 4L << 20;
+
+    // per-frame telemetry ring (~9 min at 60 fps). when a run ends, or on F4, that run's samples go to
+    // telemetry/telemetry-<seed>-<n>.bin; only the newest TELEMETRY_MAX_FILES dumps are kept
+    public static final boolean TELEMETRY = false;
+    public static final int TELEMETRY_SAMPLES = 1 << 15;
+    public static final int TELEMETRY_MAX_FILES = 50;
+
+    // Prometheus endpoint at 127.0.0.1:<port>/metrics for kiosk dashboards, 0 = off (9464 is the usual pick)
+    public static final int METRICS_PORT = 0;
+    public static final int METRICS_PUBLISH_HZ = 4;
+
+    // follow camera (C toggles, +/- zoom). zoom 1 = one world pixel per screen pixel
+    // FIT shows the whole map, which stops being readable past ~100 tiles a side
+    public static final boolean CAMERA_FOLLOW = false;
+    public static final float CAMERA_ZOOM = 1.4f;
+    public static final float CAMERA_ZOOM_MIN = 0.25f;
+    public static final float CAMERA_ZOOM_MAX = 4f;
+    public static final float CAMERA_ZOOM_STEP = 1.25f;
+
     // Rotation step for SIDE view it is genius hehehe
     public static final int ROT_STEP_DEG = 15;
     public static final int ROT_MIN = 0;
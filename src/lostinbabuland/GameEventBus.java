@@ -0,0 +1,166 @@
+package lostinbabuland;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// gameplay publishes each thing that happened once (type + two ints + two floats), consumers read the same ring
+// slots are parallel primitive arrays sized once, so publishing is a few array stores and a release store
+// sim-thread consumers (StatsTracker) run in drain() at the end of every tick and are the only ones the producer
+// waits for, so stats stay deterministic for replays. background consumers poll on their own thread, see events
+// a tick late at most, and count what they lose if they fall a whole ring behind instead of holding up the sim
+// single producer: only the sim thread may publish
+
+public final class GameEventBus {
+    // payload per type: a, b, x, y (unused ones are 0)
+    public static final int STEP = 0;          // a tile, b flags (THREAT | SIDE), x dt, y player speed
+    public static final int PLAYER_MOVED = 1;  // x distance
+    public static final int BUMP = 2;
+    public static final int PLAYER_SHOT = 3;   // a tile
+    public static final int ENEMY_SHOT = 4;
+    public static final int ENEMIES_MOVED = 5; // x total distance of all enemies this tick
+    public static final int HIT_ENEMY = 6;     // a score
+    public static final int PLAYER_HIT = 7;    // a tile
+    public static final int PLAYER_DIED = 8;   // a tile
+    public static final int CANDY = 9;
+    public static final int GEM = 10;
+    public static final int SWITCH_VIEW = 11;  // a new view ordinal
+    public static final int ROTATE = 12;       // a new rotation in degrees
+    public static final int NEW_WORLD = 13;    // a width, b height (tiles)
+    public static final int RUN_END = 14;      // a 1 if won (0 for deaths and restarts)
+    // from the FX shell between ticks, the sim itself ignores these
+    public static final int FRAME = 15;        // x frame seconds, y used heap MB
+    public static final int HITCH = 16;        // x late pulse in ms
+
+    public static final int THREAT = 1, SIDE = 2;
+
+    public interface Handler {
+        void onEvent(int type, int a, int b, float x, float y);
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final int[] type;
+    private final int[] a;
+    private final int[] b;
+    private final float[] x;
+    private final float[] y;
+
+    private long next = 0;                                // producer only
+    private final AtomicLong published = new AtomicLong(); // == next between publishes, what background threads read
+    private long drained = 0;                             // sim-thread consumers are up to here
+    private Handler[] inline = new Handler[0];
+    private long dropped = 0;
+
+    // capacity is rounded up to a power of two
+    public GameEventBus(int capacity) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = this.capacity - 1;
+        type = new int[this.capacity];
+        a = new int[this.capacity];
+        b = new int[this.capacity];
+        x = new float[this.capacity];
+        y = new float[this.capacity];
+    }
+
+    public int capacity() { return capacity; }
+    public long published() { return next; }
+    public long dropped() { return dropped; }
+
+    public void publish(int t) { publish(t, 0, 0, 0f, 0f); }
+    public void publish(int t, int a) { publish(t, a, 0, 0f, 0f); }
+    public void publish(int t, float x) { publish(t, 0, 0, x, 0f); }
+
+    public void publish(int t, int a, int b, float x, float y) {
+        // only the inline consumers gate us. they drain every tick, so this means one tick overflowed the ring
+        if (next - drained >= capacity) { dropped++; return; }
+        int i = (int)(next & mask);
+        type[i] = t;
+        this.a[i] = a;
+        this.b[i] = b;
+        this.x[i] = x;
+        this.y[i] = y;
+        published.lazySet(++next); // release, no full fence
+    }
+
+    // sim thread, before the first publish
+    public void subscribe(Handler h) {
+        inline = Arrays.copyOf(inline, inline.length + 1);
+        inline[inline.length - 1] = h;
+    }
+
+    // sim thread. hands everything since the last drain to the inline consumers, in order
+    public void drain() {
+        Handler[] hs = inline;
+        for (long s = drained; s < next; s++) {
+            int i = (int)(s & mask);
+            for (Handler h : hs) h.onEvent(type[i], a[i], b[i], x[i], y[i]);
+        }
+        drained = next;
+    }
+
+    // starts a daemon thread feeding h from the oldest event still in the ring, so one attached right after
+    // the sim was built still sees its first NEW_WORLD
+    public Background consume(Handler h, String name) {
+        Background bg = new Background(h, name);
+        bg.thread.start();
+        return bg;
+    }
+
+    public final class Background {
+        private final Handler handler;
+        private final Thread thread;
+        private volatile boolean closed;
+        private volatile long seen;
+        private volatile long lost;
+
+        private Background(Handler handler, String name) {
+            this.handler = handler;
+            this.seen = Math.max(0, published.get() - capacity + 1); // +1: see run()
+            this.thread = new Thread(this::run, name);
+            thread.setDaemon(true);
+        }
+
+        public long seen() { return seen; }
+        public long lost() { return lost; }
+
+        private void run() {
+            long s = seen;
+            while (true) {
+                long avail = published.get();
+                if (s >= avail) {
+                    if (closed) return;
+                    LockSupport.parkNanos(2_000_000L);
+                    continue;
+                }
+                for (; s < avail; s++) {
+                    int i = (int)(s & mask);
+                    int t = type[i], ea = a[i], eb = b[i];
+                    float ex = x[i], ey = y[i];
+                    // the slot counts only if the producer hadn't come round to it again while we copied
+                    // (the slot after `published` may already be half written, hence the +1)
+                    VarHandle.acquireFence();
+                    long oldest = published.get() - capacity + 1;
+                    if (s < oldest) {
+                        lost += oldest - s;
+                        s = oldest - 1;
+                        continue;
+                    }
+                    handler.onEvent(t, ea, eb, ex, ey);
+                }
+                seen = s;
+            }
+        }
+
+        // hands over what's already published, then stops
+        public void close() {
+            closed = true;
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
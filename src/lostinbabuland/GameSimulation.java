@@ -0,0 +1,252 @@
+package lostinbabuland;
+
+import java.util.Random;
+
+// all the game rules, no JavaFX. PlatformerSprint feeds it input and draws it, batch runs just tick it
+
+public final class GameSimulation {
+    private final long seed;
+    private final Random seeds;
+
+    private World world;
+    private Player player;
+    private final EnemyPool enemies = new EnemyPool();
+    private final ProjectileSystem projectiles = new ProjectileSystem();
+    private final FlowField flow = new FlowField();
+
+    private final SpatialHash enemyGrid = new SpatialHash(GameConfig.SPATIAL_CELL);
+    private final SpatialHash pickupGrid = new SpatialHash(GameConfig.SPATIAL_CELL);
+    private final SpatialHash holeGrid = new SpatialHash(GameConfig.SPATIAL_CELL);
+    private final IntList nearby = new IntList(8);
+
+    private ViewMode view = ViewMode.SIDE;
+    private int rotDeg = 0;
+
+    private boolean hasGemKey = false;
+    private boolean exitOpen = false;
+
+    private final StatsTracker stats = new StatsTracker();
+    private final GameEventBus events = new GameEventBus(GameConfig.EVENT_BUS_CAPACITY);
+    private final FrameProfiler profiler = new FrameProfiler();
+    private int approxWalkable = 1;
+
+    private long ticks = 0;
+    private int wins = 0;
+    private int deaths = 0;
+
+    // every world after the first is seeded from this, so one seed pins down the whole session
+    public GameSimulation(long seed) {
+        this.seed = seed;
+        this.seeds = new Random(seed);
+        events.subscribe(stats);
+        reset();
+    }
+
+    public long seed() { return seed; }
+    public World world() { return world; }
+    public Player player() { return player; }
+    public EnemyPool enemies() { return enemies; }
+    public ProjectileSystem projectiles() { return projectiles; }
+    public ViewMode view() { return view; }
+    public int rotDeg() { return rotDeg; }
+    public boolean hasGemKey() { return hasGemKey; }
+    public boolean exitOpen() { return exitOpen; }
+    public StatsTracker stats() { return stats; }
+    public GameEventBus events() { return events; }
+    public FrameProfiler profiler() { return profiler; }
+    public int approxWalkable() { return approxWalkable; }
+    public long ticks() { return ticks; }
+    public int wins() { return wins; }
+    public int deaths() { return deaths; }
+
+    public void reset() {
+        long seed = seeds.nextLong();
+        world = GameConfig.HORDE_MODE
+                ? new World(seed, GameConfig.HORDE_WORLD_W, GameConfig.HORDE_WORLD_H)
+                : new World(seed);
+
+        player = new Player(world.startX, world.startY);
+        events.publish(GameEventBus.NEW_WORLD, world.w, world.h, 0f, 0f);
+
+        enemies.clear();
+        projectiles.clear();
+
+        // pickups and holes never move, bucket them once per world
+        pickupGrid.resize(world);
+        for (int i = 0; i < world.pickups.size(); i++) pickupGrid.insert(i, world.pickups.get(i).x, world.pickups.get(i).y);
+        holeGrid.resize(world);
+        for (int i = 0; i < world.holes.size(); i++) holeGrid.insert(i, world.holes.get(i).x, world.holes.get(i).y);
+
+        enemyGrid.resize(world);
+        spawnEnemies();
+
+        hasGemKey = false;
+        exitOpen = false;
+        view = ViewMode.SIDE;
+        rotDeg = 0;
+
+        approxWalkable = estimateWalkableTiles();
+        events.drain(); // whatever ended the last run, then the new world, before anyone reads stats
+    }
+
+    private int estimateWalkableTiles() {
+        int walk = 0;
+        for (int y = 0; y < world.h; y++) walk += world.w - world.solidCountInRow(y);
+        return Math.max(1, walk);
+    }
+
+    private void spawnEnemies() {
+        int count = GameConfig.ENEMY_COUNT_MIN + world.rng.nextInt(GameConfig.ENEMY_COUNT_MAX - GameConfig.ENEMY_COUNT_MIN + 1);
+        float spacing = GameConfig.TILE*3f;
+        if (GameConfig.HORDE_MODE) {
+            count = GameConfig.HORDE_ENEMY_COUNT;
+            spacing = GameConfig.TILE;
+        }
+        int placed = 0;
+        int safety = 0;
+
+        while (placed < count && safety++ < 20000 + count*20) {
+            int tx = 2 + world.rng.nextInt(world.w-4);
+            int ty = 2 + world.rng.nextInt(world.h-4);
+            if (world.isSolid(tx, ty)) continue;
+
+            float x = world.tileCenterX(tx);
+            float y = world.tileCenterY(ty);
+
+            float dx = x - player.x, dy = y - player.y;
+            if (dx*dx + dy*dy < (GameConfig.TILE*10f)*(GameConfig.TILE*10f)) continue;
+
+            if (enemyGrid.anyWithin(x, y, spacing)) continue;
+
+            enemyGrid.insert(enemies.size(), x, y);
+            enemies.spawn(x, y, world.rng);
+            placed++;
+        }
+    }
+
+    public void tick(SimInput in, float dt) {
+        ticks++;
+
+        if (in.restart) {
+            in.clearEdges();
+            events.publish(GameEventBus.RUN_END, 0); // a restarted run is still a session
+            reset();
+            return;
+        }
+
+        if (view == ViewMode.SIDE) {
+            if (in.rotateLeft) { rotDeg = MathUtil.wrapDeg(rotDeg - GameConfig.ROT_STEP_DEG); events.publish(GameEventBus.ROTATE, rotDeg); }
+            if (in.rotateRight) { rotDeg = MathUtil.wrapDeg(rotDeg + GameConfig.ROT_STEP_DEG); events.publish(GameEventBus.ROTATE, rotDeg); }
+        }
+        boolean shootPressed = in.shootPressed;
+        in.clearEdges();
+
+        float mx = 0f, my = 0f;
+        if (in.left) mx -= 1f;
+        if (in.right) mx += 1f;
+        if (in.up) my -= 1f;
+        if (in.down) my += 1f;
+
+        float speedNow = MathUtil.len(mx, my) * GameConfig.PLAYER_SPEED;
+
+        long t0 = profiler.begin();
+        enemies.rebuildGrid(enemyGrid);
+        boolean inThreat = enemyGrid.anyWithin(player.x, player.y, GameConfig.THREAT_RADIUS);
+
+        int tileKey = world.toTileY(player.y) * world.w + world.toTileX(player.x);
+        int flags = (inThreat ? GameEventBus.THREAT : 0) | (view == ViewMode.SIDE ? GameEventBus.SIDE : 0);
+        events.publish(GameEventBus.STEP, tileKey, flags, dt, speedNow);
+
+        player.moveWithCollision(world, mx, my, dt, events);
+        player.update(world, dt);
+
+        if (shootPressed) {
+            if (player.fireCooldown <= 0f && player.hp > 0) {
+                player.fireCooldown = GameConfig.PLAYER_FIRE_COOLDOWN;
+                float ax = player.aimX, ay = player.aimY;
+                if (Math.abs(ax) < 1e-4f && Math.abs(ay) < 1e-4f) { ax = 1f; ay = 0f; }
+                projectiles.spawnPlayerBullet(player.x + ax*(player.r+7f), player.y + ay*(player.r+7f), ax, ay);
+                events.publish(GameEventBus.PLAYER_SHOT, tileKey);
+            }
+        }
+        profiler.end(FrameProfiler.PLAYER, t0);
+
+        t0 = profiler.begin();
+        pickupGrid.queryRadius(player.x, player.y, player.r + 10f, nearby);
+        for (int i = 0; i < nearby.size(); i++) {
+            Pickup p = world.pickups.get(nearby.get(i));
+            if (p.collected) continue;
+            p.collected = true;
+            if (p.type == PickupType.CANDY) events.publish(GameEventBus.CANDY);
+            if (p.type == PickupType.GEM) { events.publish(GameEventBus.GEM); hasGemKey = true; exitOpen = true; }
+        }
+
+        if (holeGrid.anyWithin(player.x, player.y, GameConfig.TILE*0.35f)) {
+            view = (view == ViewMode.TOP) ? ViewMode.SIDE : ViewMode.TOP;
+            events.publish(GameEventBus.SWITCH_VIEW, view.ordinal());
+            player.x += player.aimX * 18f;
+            player.y += player.aimY * 18f;
+        }
+        profiler.end(FrameProfiler.PICKUPS, t0);
+
+        t0 = profiler.begin();
+        enemies.update(dt);
+        flow.update(world, world.toTileX(player.x), world.toTileY(player.y));
+        enemies.thinkAll(world, player, flow, dt, enemyGrid, projectiles, events);
+        profiler.end(FrameProfiler.ENEMIES, t0);
+
+        // enemies moved, re-bucket before bullet hit tests
+        t0 = profiler.begin();
+        enemies.rebuildGrid(enemyGrid);
+        projectiles.update(world, player, enemies, enemyGrid, dt, events);
+        profiler.end(FrameProfiler.PROJECTILES, t0);
+
+        // hash ids are only valid for this step, now it's safe to drop the dead
+        enemies.compact();
+
+        float ex = world.exitX - player.x, ey = world.exitY - player.y;
+        if (exitOpen && ex*ex + ey*ey <= (GameConfig.TILE*0.45f)*(GameConfig.TILE*0.45f)) {
+            wins++;
+            events.publish(GameEventBus.RUN_END, 1);
+            reset();
+        } else if (player.hp <= 0) {
+            deaths++;
+            events.publish(GameEventBus.PLAYER_DIED, world.toTileY(player.y) * world.w + world.toTileX(player.x));
+            events.publish(GameEventBus.RUN_END, 0);
+            reset();
+        } else {
+            events.drain();
+        }
+    }
+
+    // cheap fingerprint of everything the rules touch, replays compare it every so often to catch desyncs
+    public long stateHash() {
+        long h = 0xcbf29ce484222325L;
+        h = mix(h, ticks);
+        h = mix(h, Float.floatToIntBits(player.x));
+        h = mix(h, Float.floatToIntBits(player.y));
+        h = mix(h, player.hp);
+        h = mix(h, stats.score());
+        h = mix(h, view.ordinal());
+        h = mix(h, rotDeg);
+        h = mix(h, exitOpen ? 1 : 0);
+        h = mix(h, enemies.size());
+        for (int i = 0; i < enemies.size(); i++) {
+            h = mix(h, Float.floatToIntBits(enemies.x(i)));
+            h = mix(h, Float.floatToIntBits(enemies.y(i)));
+        }
+        ProjectileSystem.View b = projectiles.view();
+        h = mix(h, b.size());
+        for (int i = 0; i < b.size(); i++) {
+            h = mix(h, Float.floatToIntBits(b.x(i)));
+            h = mix(h, Float.floatToIntBits(b.y(i)));
+        }
+        return h;
+    }
+
+    static long mix(long h, long v) {
+        h ^= v;
+        h *= 0x100000001b3L;
+        return h ^ (h >>> 29);
+    }
+}
@@ -0,0 +1,228 @@
+package lostinbabuland;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// flags pulses that came too late and says why: a GC pause, the sim catching up, rendering, or something else
+// (the gap between pulses covers the previous frame's work, so that's what gets blamed)
+// gc time comes from polling the collector beans each frame, notifications add names/causes for the log
+// log lines are written on a background thread, the frame only formats a string when a hitch happens
+// every session appends to the same log; once it passes maxLogBytes it's moved to <name>.old on the next open
+
+public final class HitchDetector {
+    public enum Cause { GC, SIM, RENDER, OTHER }
+
+    private static final long FRAME_NANOS = (long)(GameConfig.FIXED_DT * 1e9);
+
+    private final long thresholdNanos;
+    private final Path logFile;
+    private final long maxLogBytes;
+    private final ExecutorService writer;
+
+    private final GarbageCollectorMXBean[] pauseBeans;
+    private final com.sun.management.ThreadMXBean threads;
+    private final long threadId = Thread.currentThread().getId();
+
+    // written by the JMX notification thread
+    private final AtomicLong gcNotified = new AtomicLong();
+    private final AtomicLong gcNotifiedMs = new AtomicLong();
+    private volatile String lastGc = "";
+    private final NotificationListener gcListener;
+
+    // hitch-log thread only
+    private BufferedWriter out;
+    private volatile int logFailures;
+    private volatile IOException lastError;
+
+    private long lastStart = 0;
+    private long gcMsAtStart = 0;
+    private long allocAtStart = 0;
+
+    // previous frame's work, what the next gap gets compared against
+    private long lastSimNanos, lastRenderNanos;
+    private int lastSteps;
+    private boolean lastDropped;
+
+    private int hitches;
+    private final int[] byCause = new int[Cause.values().length];
+    private long worstNanos, lastHitchNanos;
+    private long allocLastFrame, allocMaxFrame, allocTotal;
+
+    public HitchDetector(long thresholdNanos, Path logFile, long maxLogBytes) {
+        this.thresholdNanos = thresholdNanos;
+        this.logFile = logFile;
+        this.maxLogBytes = maxLogBytes;
+        this.writer = logFile == null ? null : Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "hitch-log");
+            t.setDaemon(true);
+            return t;
+        });
+
+        List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+        // concurrent collectors report cycle time, not pause time; only the pause beans explain a late frame
+        this.pauseBeans = beans.stream()
+                .filter(b -> !b.getName().contains("Cycles") && !b.getName().contains("Concurrent"))
+                .toArray(GarbageCollectorMXBean[]::new);
+
+        gcListener = (n, handback) -> {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(n.getType())) return;
+            GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData)n.getUserData());
+            gcNotified.incrementAndGet();
+            gcNotifiedMs.addAndGet(info.getGcInfo().getDuration());
+            lastGc = info.getGcName() + " (" + info.getGcCause() + ") " + info.getGcInfo().getDuration() + "ms";
+        };
+        for (GarbageCollectorMXBean b : pauseBeans) {
+            if (b instanceof NotificationEmitter) ((NotificationEmitter)b).addNotificationListener(gcListener, null, null);
+        }
+
+        ThreadMXBean tb = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean sun = null;
+        if (tb instanceof com.sun.management.ThreadMXBean) {
+            sun = (com.sun.management.ThreadMXBean)tb;
+            if (!sun.isThreadAllocatedMemorySupported()) sun = null;
+            else if (!sun.isThreadAllocatedMemoryEnabled()) sun.setThreadAllocatedMemoryEnabled(true);
+        }
+        this.threads = sun;
+    }
+
+    public int hitches() { return hitches; }
+    public int hitches(Cause c) { return byCause[c.ordinal()]; }
+    public float worstMs() { return worstNanos / 1e6f; }
+    public float lastHitchMs() { return lastHitchNanos / 1e6f; }
+    public long gcCount() { return gcNotified.get(); }
+    public long gcMs() { return gcNotifiedMs.get(); }
+    public long allocLastFrame() { return allocLastFrame; }
+    public long allocMaxFrame() { return allocMaxFrame; }
+    public long allocTotal() { return allocTotal; }
+    public int logFailures() { return logFailures; }
+    public IOException lastError() { return lastError; }
+
+    // top of a pulse: was the gap since the last one too long? expectedGap is for deliberately slow pulses
+    // (idle throttling), those only count once they're twice as late as planned
+    public void frameStart(long now, long expectedGap) {
+        long gcMs = pauseMs();
+        if (lastStart != 0) {
+            long gap = now - lastStart;
+            if (gap > Math.max(thresholdNanos, expectedGap * 2)) hitch(gap, (gcMs - gcMsAtStart) * 1_000_000L);
+        }
+        lastStart = now;
+        gcMsAtStart = gcMs;
+        allocAtStart = allocated();
+    }
+
+    public void frameEnd(long simNanos, long renderNanos, int steps, boolean dropped) {
+        lastSimNanos = simNanos;
+        lastRenderNanos = renderNanos;
+        lastSteps = steps;
+        lastDropped = dropped;
+
+        long a = allocated() - allocAtStart;
+        allocLastFrame = a;
+        allocMaxFrame = Math.max(allocMaxFrame, a);
+        allocTotal += a;
+    }
+
+    // stops listening for GCs, writes out queued lines and closes the log
+    public void close() {
+        for (GarbageCollectorMXBean b : pauseBeans) {
+            if (!(b instanceof NotificationEmitter)) continue;
+            try {
+                ((NotificationEmitter)b).removeNotificationListener(gcListener);
+            } catch (ListenerNotFoundException ignored) {
+            }
+        }
+        if (writer == null || writer.isShutdown()) return;
+        writer.execute(this::closeLog);
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void hitch(long gap, long gcNanos) {
+        // a pause that lands inside a tick shows up in the sim timing as well, take it back out
+        long over = gap - FRAME_NANOS;
+        long sim = Math.max(0, lastSimNanos - gcNanos);
+        long work = Math.max(sim, lastRenderNanos);
+
+        Cause cause;
+        if (gcNanos > 0 && gcNanos * 2 >= over) cause = Cause.GC;
+        else if (work * 2 < over) cause = Cause.OTHER; // most of it was nobody we measure (FX pulse, OS, vsync)
+        else if (sim >= lastRenderNanos) cause = Cause.SIM;
+        else cause = Cause.RENDER;
+
+        hitches++;
+        byCause[cause.ordinal()]++;
+        worstNanos = Math.max(worstNanos, gap);
+        lastHitchNanos = gap;
+
+        if (writer == null || writer.isShutdown()) return;
+        String line = String.format(Locale.US, "%d,%s,%.2f,%.2f,%.2f,%.2f,%d,%s,%d,%s\n",
+                System.currentTimeMillis(), cause, gap / 1e6, gcNanos / 1e6, lastSimNanos / 1e6, lastRenderNanos / 1e6,
+                lastSteps, lastDropped ? "true" : "false", allocLastFrame, lastGc);
+        writer.execute(() -> append(line));
+    }
+
+    // hitch-log thread. one writer kept open for the whole session, header on a new file
+    private void append(String line) {
+        try {
+            if (out == null) {
+                if (logFile.getParent() != null) Files.createDirectories(logFile.getParent());
+                if (Files.exists(logFile) && Files.size(logFile) > maxLogBytes) {
+                    Files.move(logFile, logFile.resolveSibling(logFile.getFileName() + ".old"), StandardCopyOption.REPLACE_EXISTING);
+                }
+                boolean fresh = !Files.exists(logFile) || Files.size(logFile) == 0;
+                out = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                if (fresh) out.write("timestamp,cause,gap_ms,gc_ms,sim_ms,render_ms,steps,dropped,alloc_bytes,last_gc\n");
+            }
+            out.write(line);
+            out.flush(); // hitches are rare, and the log is most useful right after a crash
+        } catch (IOException e) {
+            logFailures++;
+            lastError = e;
+            closeLog(); // reopened on the next hitch
+        }
+    }
+
+    private void closeLog() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            lastError = e;
+        }
+        out = null;
+    }
+
+    private long pauseMs() {
+        long t = 0;
+        for (GarbageCollectorMXBean b : pauseBeans) t += Math.max(0, b.getCollectionTime());
+        return t;
+    }
+
+    private long allocated() {
+        return threads == null ? 0 : threads.getThreadAllocatedBytes(threadId);
+    }
+}
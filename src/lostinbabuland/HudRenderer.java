@@ -43,4 +43,48 @@ public final class HudRenderer {
                 stats.distance(), stats.switches(), stats.rotations(), stats.candies(), stats.gems(), stats.bumps());
         g.fillText(l4, 18, 110);
     }
-}
\ No newline at end of file
+
+    // what the render queue saved on the last world frame and the hitch counters, bottom-left of the playfield
+    public void drawRenderStats(GraphicsContext g, double h, RenderQueue q, HitchDetector hd) {
+        g.setFont(monoSmall);
+        g.setFill(Color.rgb(210,210,210));
+        g.fillText(String.format("draw calls %d (per-shape %d)   paint changes %d (per-shape %d)",
+                q.drawCalls(), q.naiveDrawCalls(), q.stateChanges(), q.naiveStateChanges()), 18, h - 34);
+        g.fillText(String.format("hitches %d (gc %d sim %d render %d other %d, worst %.0fms)   gc %d/%dms   alloc/frame %dKB (max %dKB)",
+                hd.hitches(), hd.hitches(HitchDetector.Cause.GC), hd.hitches(HitchDetector.Cause.SIM),
+                hd.hitches(HitchDetector.Cause.RENDER), hd.hitches(HitchDetector.Cause.OTHER), hd.worstMs(),
+                hd.gcCount(), hd.gcMs(), hd.allocLastFrame() / 1024, hd.allocMaxFrame() / 1024), 18, h - 14);
+    }
+
+    // F3: frame-time graph (work per frame, line at 16.7ms) and p50/p95/p99/max per phase, top-right of the playfield
+    public void drawProfiler(GraphicsContext g, double w, double h, FrameProfiler prof) {
+        double pw = 470, ph = 300;
+        double x0 = w - pw - 18, y0 = GameConfig.HUD_H + 18;
+
+        g.setFill(Color.rgb(0,0,0,0.72));
+        g.fillRect(x0, y0, pw, ph);
+
+        // graph, 1px per frame, 60px = 16.7ms
+        double gx = x0 + 10, gy = y0 + 10, gh = 90;
+        double budget = 1e9 / 60.0;
+        g.setStroke(Color.rgb(255,255,255,0.25));
+        g.strokeLine(gx, gy + gh - gh*0.66, gx + FrameProfiler.HISTORY, gy + gh - gh*0.66);
+        for (int i = 0; i < prof.filled(); i++) {
+            long ns = prof.sample(FrameProfiler.FRAME, i);
+            double bh = Math.min(gh, ns / budget * gh * 0.66);
+            g.setFill(ns > budget ? Color.rgb(255,90,90,0.9) : Color.rgb(120,230,140,0.9));
+            g.fillRect(gx + i, gy + gh - bh, 1, bh);
+        }
+
+        g.setFont(monoSmall);
+        g.setFill(Color.rgb(230,230,230));
+        double ty = gy + gh + 26;
+        g.fillText(String.format("%-13s %7s %7s %7s %7s", "phase (ms)", "p50", "p95", "p99", "max"), gx, ty);
+        for (int p = 0; p < FrameProfiler.PHASES; p++) {
+            ty += 20;
+            g.fillText(String.format("%-13s %7.2f %7.2f %7.2f %7.2f", FrameProfiler.NAMES[p],
+                    prof.percentile(p, 0.50) / 1e6, prof.percentile(p, 0.95) / 1e6,
+                    prof.percentile(p, 0.99) / 1e6, prof.max(p) / 1e6), gx, ty);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package lostinbabuland;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// replay log: header (magic, version, seed, hash interval), then one input byte per tick
+// and the sim state hash after every hashInterval ticks. ~1 byte/tick + 8 bytes/sec
+
+public final class InputRecorder implements Closeable {
+    static final int MAGIC = 0x42414255; // "BABU"
+    static final short VERSION = 1;
+
+    private final Path file;
+    private final DataOutputStream out;
+    private final int hashInterval;
+
+    public InputRecorder(Path file, long seed, int hashInterval) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        this.file = file;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        this.hashInterval = hashInterval;
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(seed);
+        out.writeInt(hashInterval);
+    }
+
+    public Path file() { return file; }
+
+    // call right after sim.tick with the bits that tick consumed
+    public void recordTick(int inputBits, GameSimulation sim) throws IOException {
+        out.writeByte(inputBits);
+        if (sim.ticks() % hashInterval == 0) out.writeLong(sim.stateHash());
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
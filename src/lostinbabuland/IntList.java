@@ -0,0 +1,38 @@
+package lostinbabuland;
+
+import java.util.Arrays;
+
+// tiny growable int list so paths don't box or allocate an int[] per node
+
+public final class IntList {
+    private int[] data;
+    private int size;
+
+    public IntList() { this(16); }
+
+    public IntList(int capacity) {
+        data = new int[Math.max(1, capacity)];
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public void clear() { size = 0; }
+
+    public int get(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+        return data[i];
+    }
+
+    public void add(int v) {
+        if (size == data.length) data = Arrays.copyOf(data, size * 2);
+        data[size++] = v;
+    }
+
+    public void reverse() {
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            int t = data[i]; data[i] = data[j]; data[j] = t;
+        }
+    }
+
+    public int[] toArray() { return Arrays.copyOf(data, size); }
+}
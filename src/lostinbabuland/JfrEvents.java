@@ -0,0 +1,81 @@
+package lostinbabuland;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Flight Recorder events for the game. all off by default, turn them on in a .jfc or with
+//   jcmd <pid> JFR.start settings=profile +lostinbabuland.PathSearch#enabled=true ...
+// call sites check the EventType first, so with nothing recording there's no object and no clock read
+
+public final class JfrEvents {
+    private JfrEvents(){}
+
+    static final EventType FIXED_STEP = EventType.getEventType(FixedStep.class);
+    static final EventType PATH_SEARCH = EventType.getEventType(PathSearch.class);
+    static final EventType WORLD_GEN = EventType.getEventType(WorldGen.class);
+    static final EventType FRAME_RENDER = EventType.getEventType(FrameRender.class);
+
+    @Name("lostinbabuland.FixedStep")
+    @Label("Fixed Step")
+    @Description("Simulation ticks run in one pulse and accumulator time thrown away when it fell too far behind")
+    @Category({"Lost in Babuland", "Simulation"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class FixedStep extends Event {
+        @Label("Ticks") int ticks;
+        @Label("Dropped") @Timespan(Timespan.NANOSECONDS) long droppedNanos;
+        @Label("Frame Delta") @Timespan(Timespan.NANOSECONDS) long frameNanos;
+    }
+
+    @Name("lostinbabuland.PathSearch")
+    @Label("Path Search")
+    @Category({"Lost in Babuland", "Simulation"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class PathSearch extends Event {
+        @Label("Algorithm") String algorithm;
+        @Label("Expanded") int expanded;
+        @Label("Scanned") int scanned;
+        @Label("Path Length") int pathLength;
+        @Label("Found") boolean found;
+        @Label("Budget Hit") boolean budgetHit;
+    }
+
+    @Name("lostinbabuland.WorldGen")
+    @Label("World Generation")
+    @Category({"Lost in Babuland", "World"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class WorldGen extends Event {
+        @Label("Width") int width;
+        @Label("Height") int height;
+        @Label("Walls") @Timespan(Timespan.NANOSECONDS) long wallsNanos;
+        @Label("Corridors") @Timespan(Timespan.NANOSECONDS) long corridorsNanos;
+        @Label("Components") @Timespan(Timespan.NANOSECONDS) long componentsNanos;
+        @Label("Start/Exit") @Timespan(Timespan.NANOSECONDS) long startExitNanos;
+        @Label("Placement") @Timespan(Timespan.NANOSECONDS) long placementNanos;
+        @Label("Start/Exit Retries") int retries;
+        @Label("Start/Exit Fallback") boolean fallback;
+        @Label("Components Count") int components;
+    }
+
+    @Name("lostinbabuland.FrameRender")
+    @Label("Frame Render")
+    @Category({"Lost in Babuland", "Rendering"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class FrameRender extends Event {
+        @Label("View") String view;
+        @Label("Render Target Width") int targetWidth;
+        @Label("Follow Camera") boolean follow;
+        @Label("Draw Calls") int drawCalls;
+        @Label("Paint Changes") int stateChanges;
+    }
+}
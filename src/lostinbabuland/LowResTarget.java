@@ -0,0 +1,59 @@
+package lostinbabuland;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+// playfield at a fixed low resolution (e.g. 320x150) drawn straight into the window canvas under a whole-number
+// scale with smoothing off: the cached wall layer and the sprites come out small and blocky, and nothing is read back
+// from the GPU (snapshotting an off-screen canvas every frame stalled on that readback, which is exactly what a weak
+// integrated GPU can't afford)
+
+public final class LowResTarget {
+    private GraphicsContext g;
+    private double k;
+    private double x, y, viewW, viewH, ox, oy, dw, dh;
+
+    // largest whole-number scale that fits; only goes fractional if the view is smaller than the target
+    public static double scale(int w, int h, double viewW, double viewH) {
+        double fit = Math.min(viewW / w, viewH / h);
+        return fit >= 1 ? Math.floor(fit) : fit;
+    }
+
+    // sets dst up so (0,0)..(w,h) covers the view blown up by scale(), centred. pair with end()
+    public GraphicsContext begin(GraphicsContext dst, int w, int h, double x, double y, double viewW, double viewH) {
+        this.g = dst;
+        this.x = x;
+        this.y = y;
+        this.viewW = viewW;
+        this.viewH = viewH;
+        k = scale(w, h, viewW, viewH);
+        dw = w * k;
+        dh = h * k;
+        ox = x + Math.floor((viewW - dw) * 0.5);
+        oy = y + Math.floor((viewH - dh) * 0.5);
+
+        dst.save();
+        dst.translate(ox, oy);
+        dst.scale(k, k);
+        dst.setImageSmoothing(false);
+        return dst;
+    }
+
+    // window pixels per target pixel for the frame begin() set up
+    public double scale() { return k; }
+
+    // back to window pixels, and black over anything that spilled into the letterbox bars
+    public void end() {
+        g.restore();
+        g.setFill(Color.BLACK);
+        if (ox > x) {
+            g.fillRect(x, y, ox - x, viewH);
+            g.fillRect(ox + dw, y, x + viewW - ox - dw, viewH);
+        }
+        if (oy > y) {
+            g.fillRect(x, y, viewW, oy - y);
+            g.fillRect(x, oy + dh, viewW, y + viewH - oy - dh);
+        }
+        g = null;
+    }
+}
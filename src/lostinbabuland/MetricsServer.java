@@ -0,0 +1,279 @@
+package lostinbabuland;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Prometheus text endpoint on 127.0.0.1:<port>/metrics for the kiosk dashboards
+// the FX thread keeps the frame histograms itself and every 1/METRICS_PUBLISH_HZ copies everything the page shows into
+// a fresh Snapshot behind an AtomicReference. the http thread only ever reads the latest snapshot (plus the JVM beans,
+// which are thread safe), so a slow or stuck scraper can't hold up a frame
+// curl -s localhost:9464/metrics
+
+public final class MetricsServer {
+    // frame/sim/render time buckets in seconds, +Inf is implied
+    static final double[] BUCKETS = { 0.004, 0.008, 0.0167, 0.025, 0.0334, 0.05, 0.1, 0.25 };
+    static final int FRAME = 0, SIM = 1, RENDER = 2;
+    private static final String[] HIST_NAMES = { "frame", "sim", "render" };
+
+    private final HttpServer http;
+    private final ExecutorService exec;
+    private final AtomicReference<Snapshot> latest = new AtomicReference<>(new Snapshot());
+    private final long publishPeriod = 1_000_000_000L / GameConfig.METRICS_PUBLISH_HZ;
+
+    // FX thread only
+    private final long[][] hist = new long[3][BUCKETS.length + 1];
+    private final double[] histSum = new double[3];
+    private long frames, overruns;
+    private double droppedSec;
+    private long lastPublish;
+    private PathContext paths;
+    private long pathSearches, pathFailures, pathExpanded; // totals from worlds that are gone
+
+    public MetricsServer(int port) throws IOException {
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        exec = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "metrics-http");
+            t.setDaemon(true);
+            return t;
+        });
+        http.setExecutor(exec);
+        http.createContext("/metrics", ex -> {
+            byte[] body = render(latest.get()).getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            ex.sendResponseHeaders(200, body.length);
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        http.start();
+    }
+
+    public int port() { return http.getAddress().getPort(); }
+
+    // once per pulse, after the frame's work is done
+    public void frame(long frameNanos, long simNanos, long renderNanos, boolean overrun, double dropped) {
+        frames++;
+        observe(FRAME, frameNanos);
+        observe(SIM, simNanos);
+        observe(RENDER, renderNanos);
+        if (overrun) {
+            overruns++;
+            droppedSec += dropped;
+        }
+    }
+
+    private void observe(int h, long nanos) {
+        double sec = nanos / 1e9;
+        int b = 0;
+        while (b < BUCKETS.length && sec > BUCKETS[b]) b++;
+        hist[h][b]++;
+        histSum[h] += sec;
+    }
+
+    // FX thread. cheap no-op until the next publish is due
+    public void publish(long now, GameSimulation sim, HitchDetector hitches) {
+        if (now - lastPublish < publishPeriod) return;
+        lastPublish = now;
+
+        PathContext ctx = sim.world().paths;
+        if (ctx != paths) {
+            // new world, fold the old one's totals in so the counters never go backwards
+            if (paths != null) {
+                pathSearches += paths.searches;
+                pathFailures += paths.searchFailures;
+                pathExpanded += paths.expandedTotal;
+            }
+            paths = ctx;
+        }
+
+        StatsTracker st = sim.stats();
+        Snapshot s = new Snapshot();
+        s.runs = st.runs();
+        s.wins = sim.wins();
+        s.deaths = sim.deaths();
+        s.ticks = sim.ticks();
+        s.simSec = st.t();
+        s.score = st.score();
+        s.hp = sim.player().hp;
+        s.playerShots = st.playerShots();
+        s.playerHits = st.playerHits();
+        s.enemyShots = st.enemyShots();
+        s.enemyHits = st.enemyHits();
+        s.candies = st.candies();
+        s.gems = st.gems();
+        s.switches = st.switches();
+        s.rotations = st.rotations();
+        s.bumps = st.bumps();
+        s.distance = st.distance();
+        s.apm = st.apm();
+        s.accuracy = st.accuracy();
+        s.explorePct = st.explorePct(sim.approxWalkable());
+        s.skill = st.skillScore(sim.approxWalkable(), sim.player().hp);
+        s.fps = st.fps();
+        s.view = sim.view().ordinal();
+        s.rotDeg = sim.rotDeg();
+        s.enemies = sim.enemies().size();
+        s.bullets = sim.projectiles().size();
+        s.bulletsDropped = sim.projectiles().dropped();
+        s.frames = frames;
+        s.overruns = overruns;
+        s.droppedSec = droppedSec;
+        for (int h = 0; h < 3; h++) {
+            s.hist[h] = hist[h].clone();
+            s.histSum[h] = histSum[h];
+        }
+        for (HitchDetector.Cause c : HitchDetector.Cause.values()) s.hitches[c.ordinal()] = hitches.hitches(c);
+        s.worstHitchMs = hitches.worstMs();
+        s.allocTotal = hitches.allocTotal();
+        s.pathSearches = pathSearches + ctx.searches;
+        s.pathFailures = pathFailures + ctx.searchFailures;
+        s.pathExpanded = pathExpanded + ctx.expandedTotal;
+        latest.set(s);
+    }
+
+    public void close() {
+        http.stop(0);
+        exec.shutdownNow();
+    }
+
+    // everything the page shows, written once by the FX thread and never touched again after it's published
+    static final class Snapshot {
+        int runs, wins, deaths, score, hp;
+        long ticks;
+        float simSec;
+        int playerShots, playerHits, enemyShots, enemyHits, candies, gems, switches, rotations, bumps;
+        float distance, apm, accuracy, explorePct, fps;
+        int skill, view, rotDeg, enemies, bullets;
+        long bulletsDropped;
+        long frames, overruns;
+        double droppedSec;
+        final long[][] hist = new long[3][BUCKETS.length + 1];
+        final double[] histSum = new double[3];
+        final int[] hitches = new int[HitchDetector.Cause.values().length];
+        float worstHitchMs;
+        long allocTotal;
+        long pathSearches, pathFailures, pathExpanded;
+    }
+
+    static String render(Snapshot s) {
+        StringBuilder sb = new StringBuilder(4096);
+
+        counter(sb, "game_runs_total", "runs started (restarts, deaths and wins)", s.runs);
+        counter(sb, "game_wins_total", "runs that reached the exit", s.wins);
+        counter(sb, "game_deaths_total", "runs that ended with hp 0", s.deaths);
+        counter(sb, "game_ticks_total", "fixed sim steps", s.ticks);
+
+        // StatsTracker runs for the whole process (only the heatmap is per world), so these are lifetime totals
+        counter(sb, "game_sim_seconds_total", "sim time played", s.simSec);
+        counter(sb, "game_score_total", "score earned", s.score);
+        gauge(sb, "game_player_hp", "player hit points", s.hp);
+        counter(sb, "game_player_shots_total", "player shots", s.playerShots);
+        counter(sb, "game_player_hits_total", "player shots that hit an enemy", s.playerHits);
+        counter(sb, "game_enemy_shots_total", "enemy shots", s.enemyShots);
+        counter(sb, "game_enemy_hits_total", "enemy shots that hit the player", s.enemyHits);
+        counter(sb, "game_candies_total", "candies collected", s.candies);
+        counter(sb, "game_gems_total", "gems collected", s.gems);
+        counter(sb, "game_view_switches_total", "TOP/SIDE switches", s.switches);
+        counter(sb, "game_rotations_total", "SIDE rotations", s.rotations);
+        counter(sb, "game_bumps_total", "wall bumps", s.bumps);
+        counter(sb, "game_distance_px_total", "distance walked", s.distance);
+        gauge(sb, "game_apm", "actions per minute over the last minute of play", s.apm);
+        gauge(sb, "game_accuracy_ratio", "player hits / player shots since start", s.accuracy);
+        gauge(sb, "game_world_explore_ratio", "walkable tiles visited in the current world", s.explorePct);
+        gauge(sb, "game_skill", "HUD skill score 0-100", s.skill);
+
+        head(sb, "game_view", "gauge", "current view mode, 1 on the active one");
+        ViewMode[] views = ViewMode.values();
+        for (int i = 0; i < views.length; i++) {
+            sb.append("game_view{mode=\"").append(views[i].name()).append("\"} ").append(i == s.view ? 1 : 0).append('\n');
+        }
+        gauge(sb, "game_rotation_degrees", "SIDE view rotation", s.rotDeg);
+        gauge(sb, "game_enemies", "enemies alive", s.enemies);
+        gauge(sb, "game_bullets", "bullets alive", s.bullets);
+        counter(sb, "game_bullets_dropped_total", "shots dropped because the bullet pool was full", s.bulletsDropped);
+
+        gauge(sb, "render_fps", "smoothed render fps", s.fps);
+        counter(sb, "render_frames_total", "rendered pulses", s.frames);
+        counter(sb, "sim_tick_overruns_total", "frames that hit MAX_STEPS_PER_FRAME and dropped sim time", s.overruns);
+        counter(sb, "sim_dropped_seconds_total", "sim time thrown away by overruns", s.droppedSec);
+        for (int h = 0; h < 3; h++) {
+            histogram(sb, HIST_NAMES[h] + "_time_seconds", HIST_NAMES[h] + " time per pulse", s.hist[h], s.histSum[h]);
+        }
+
+        head(sb, "frame_hitches_total", "counter", "late pulses by blamed cause");
+        for (HitchDetector.Cause c : HitchDetector.Cause.values()) {
+            sb.append("frame_hitches_total{cause=\"").append(c.name().toLowerCase(Locale.ROOT)).append("\"} ")
+                    .append(s.hitches[c.ordinal()]).append('\n');
+        }
+        gauge(sb, "frame_worst_hitch_seconds", "worst late pulse so far", s.worstHitchMs / 1e3);
+        counter(sb, "fx_thread_allocated_bytes_total", "bytes allocated on the FX thread", s.allocTotal);
+
+        counter(sb, "path_searches_total", "enemy path searches", s.pathSearches);
+        counter(sb, "path_search_failures_total", "searches that found no path within budget", s.pathFailures);
+        counter(sb, "path_nodes_expanded_total", "nodes taken off the frontier, all searches", s.pathExpanded);
+
+        // jvm figures straight from the beans, no need to go through the FX thread for these
+        MemoryMXBean mem = ManagementFactory.getMemoryMXBean();
+        MemoryUsage heap = mem.getHeapMemoryUsage();
+        gauge(sb, "jvm_heap_used_bytes", "heap in use", heap.getUsed());
+        gauge(sb, "jvm_heap_committed_bytes", "heap committed", heap.getCommitted());
+        gauge(sb, "jvm_heap_max_bytes", "heap limit", heap.getMax());
+        gauge(sb, "jvm_nonheap_used_bytes", "non-heap in use", mem.getNonHeapMemoryUsage().getUsed());
+        head(sb, "jvm_gc_collections_total", "counter", "collections per collector");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sb.append("jvm_gc_collections_total{gc=\"").append(gc.getName()).append("\"} ").append(gc.getCollectionCount()).append('\n');
+        }
+        head(sb, "jvm_gc_collection_seconds_total", "counter", "time spent collecting per collector");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sb.append("jvm_gc_collection_seconds_total{gc=\"").append(gc.getName()).append("\"} ")
+                    .append(num(gc.getCollectionTime() / 1e3)).append('\n');
+        }
+        gauge(sb, "jvm_threads", "live threads", ManagementFactory.getThreadMXBean().getThreadCount());
+        gauge(sb, "jvm_uptime_seconds", "time since the JVM started", ManagementFactory.getRuntimeMXBean().getUptime() / 1e3);
+        return sb.toString();
+    }
+
+    private static void head(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void counter(StringBuilder sb, String name, String help, double v) {
+        head(sb, name, "counter", help);
+        sb.append(name).append(' ').append(num(v)).append('\n');
+    }
+
+    private static void gauge(StringBuilder sb, String name, String help, double v) {
+        head(sb, name, "gauge", help);
+        sb.append(name).append(' ').append(num(v)).append('\n');
+    }
+
+    private static void histogram(StringBuilder sb, String name, String help, long[] counts, double sum) {
+        head(sb, name, "histogram", help);
+        long cum = 0;
+        for (int b = 0; b < counts.length; b++) {
+            cum += counts[b];
+            sb.append(name).append("_bucket{le=\"").append(b < BUCKETS.length ? num(BUCKETS[b]) : "+Inf").append("\"} ")
+                    .append(cum).append('\n');
+        }
+        sb.append(name).append("_sum ").append(num(sum)).append('\n');
+        sb.append(name).append("_count ").append(cum).append('\n');
+    }
+
+    private static String num(double v) {
+        return v == Math.rint(v) && Math.abs(v) < 1e15 ? Long.toString((long)v) : Double.toString(v);
+    }
+}
@@ -0,0 +1,38 @@
+package lostinbabuland;
+
+import javafx.scene.paint.Color;
+
+// every colour the playfield uses, built once. Color.rgb per draw call was a fresh object each time
+// paint ids index PAINTS and double as the sort material in RenderQueue
+
+public final class Palette {
+    private Palette() {}
+
+    public static final int STAR = 0;
+    public static final int GRID = 1;
+    public static final int WALL_TOP = 2;
+    public static final int EXIT_OPEN = 3;
+    public static final int EXIT_LOCKED = 4;
+
+    static final Color[] PAINTS = {
+            Color.rgb(255,255,255,0.06),
+            Color.rgb(255,255,255,0.05),
+            Color.rgb(130,130,140,0.95),
+            Color.rgb(80,255,120,0.95),
+            Color.rgb(80,255,120,0.25),
+    };
+
+    // only used when SpriteAtlas rasterizes
+    static final Color WALL_SIDE_TOP = Color.rgb(120,120,130,0.85);
+    static final Color WALL_SIDE_FRONT = Color.rgb(150,150,160,0.85);
+    static final Color HOLE_INNER = Color.rgb(160,90,255,0.55);
+    static final Color HOLE_OUTER = Color.rgb(160,90,255,0.25);
+    static final Color CANDY = Color.rgb(255,160,40,0.95);
+    static final Color GEM = Color.rgb(120,210,255,0.95);
+    static final Color ENEMY = Color.rgb(255,80,105,0.85);
+    static final Color ENEMY_EYE = Color.rgb(255,255,255,0.70);
+    static final Color BULLET_PLAYER = Color.rgb(240,240,240,0.95);
+    static final Color BULLET_ENEMY = Color.rgb(255,120,120,0.95);
+    static final Color PLAYER = Color.rgb(255,165,60,0.95);
+    static final Color PLAYER_EYE = Color.rgb(30,30,30,0.85);
+}
@@ -0,0 +1,7 @@
+package lostinbabuland;
+
+public enum PathAlgorithm {
+    BFS,   // uninformed, floods everything
+    ASTAR, // manhattan heuristic
+    JPS    // jump point search, skips straight runs on the 4-connected grid
+}
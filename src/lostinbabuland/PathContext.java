@@ -0,0 +1,90 @@
+package lostinbabuland;
+
+import java.util.Arrays;
+
+// reusable search buffers, one per world. stamps mean we never clear the visited array between searches
+
+public final class PathContext {
+    final int tiles;
+    final int[] prev;   // packed parent tile index
+    final int[] mark;   // == stamp when visited in the current search
+    final int[] queue;  // ring buffer of packed tile indices
+    final int queueMask;
+
+    // A*/JPS
+    final int[] g;        // cost so far, valid when mark == stamp
+    final int[] closed;   // == stamp once expanded
+    long[] heapKey;       // (f << 32) | tie-break, smaller pops first
+    int[] heapNode;
+    int heapSize;
+
+    private int stamp = 0;
+
+    // filled by the last search. expanded = nodes taken off the frontier, same meaning for every algorithm
+    public int lastExpanded;
+    public int lastScanned; // JPS only: tiles stepped over while jumping
+
+    // running totals over every search on this world (metrics endpoint)
+    public long searches, searchFailures, expandedTotal;
+
+    public PathContext(int tiles) {
+        this.tiles = tiles;
+        this.prev = new int[tiles];
+        this.mark = new int[tiles];
+        this.queue = new int[Integer.highestOneBit(Math.max(1, tiles - 1)) << 1];
+        this.queueMask = queue.length - 1;
+        this.g = new int[tiles];
+        this.closed = new int[tiles];
+        this.heapKey = new long[Math.max(16, tiles)];
+        this.heapNode = new int[heapKey.length];
+    }
+
+    int nextStamp() {
+        stamp++;
+        if (stamp == Integer.MAX_VALUE) {
+            // wrapped after ~2 billion searches, start over clean
+            Arrays.fill(mark, 0);
+            Arrays.fill(closed, 0);
+            stamp = 1;
+        }
+        return stamp;
+    }
+
+    void heapPush(int node, long key) {
+        if (heapSize == heapKey.length) {
+            // nodes can be pushed more than once (lazy decrease-key), rare enough to just grow
+            heapKey = Arrays.copyOf(heapKey, heapSize * 2);
+            heapNode = Arrays.copyOf(heapNode, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapKey[parent] <= key) break;
+            heapKey[i] = heapKey[parent];
+            heapNode[i] = heapNode[parent];
+            i = parent;
+        }
+        heapKey[i] = key;
+        heapNode[i] = node;
+    }
+
+    int heapPop() {
+        int top = heapNode[0];
+        int n = --heapSize;
+        long key = heapKey[n];
+        int node = heapNode[n];
+        int i = 0;
+        while (true) {
+            int c = i*2 + 1;
+            if (c >= n) break;
+            if (c+1 < n && heapKey[c+1] < heapKey[c]) c++;
+            if (heapKey[c] >= key) break;
+            heapKey[i] = heapKey[c];
+            heapNode[i] = heapNode[c];
+            i = c;
+        }
+        heapKey[i] = key;
+        heapNode[i] = node;
+        return top;
+    }
+}
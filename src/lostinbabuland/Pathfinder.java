@@ -1,66 +1,199 @@
-
 package lostinbabuland;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Deque;
-import java.util.List;
-
 public final class Pathfinder {
     private Pathfinder(){}
 
-    public static List<int[]> bfsNextSteps(World world, int sx, int sy, int gx, int gy, int maxNodes) {
-        if (!world.inBounds(sx, sy) || !world.inBounds(gx, gy)) return List.of();
-        if (world.isSolid(gx, gy) || world.isSolid(sx, sy)) return List.of();
-        if (sx == gx && sy == gy) return List.of();
+    // same output format and same maxNodes meaning (nodes expanded) whichever algorithm you pick
+    public static boolean find(PathAlgorithm algo, World world, PathContext ctx, int sx, int sy, int gx, int gy, int maxNodes, IntList out) {
+        if (!JfrEvents.PATH_SEARCH.isEnabled()) return count(ctx, search(algo, world, ctx, sx, sy, gx, gy, maxNodes, out));
+
+        JfrEvents.PathSearch ev = new JfrEvents.PathSearch();
+        ev.begin();
+        boolean found = count(ctx, search(algo, world, ctx, sx, sy, gx, gy, maxNodes, out));
+        ev.end();
+        if (ev.shouldCommit()) {
+            ev.algorithm = algo.name();
+            ev.expanded = ctx.lastExpanded;
+            ev.scanned = ctx.lastScanned;
+            ev.pathLength = out.size();
+            ev.found = found;
+            ev.budgetHit = !found && ctx.lastExpanded >= maxNodes;
+            ev.commit();
+        }
+        return found;
+    }
+
+    // writes the path (packed y*w + x, first step .. goal, start excluded) into out. false if no path within budget
+    public static boolean bfsNextSteps(World world, PathContext ctx, int sx, int sy, int gx, int gy, int maxNodes, IntList out) {
+        return find(PathAlgorithm.BFS, world, ctx, sx, sy, gx, gy, maxNodes, out);
+    }
+
+    private static boolean count(PathContext ctx, boolean found) {
+        ctx.searches++;
+        ctx.expandedTotal += ctx.lastExpanded;
+        if (!found) ctx.searchFailures++;
+        return found;
+    }
+
+    private static boolean search(PathAlgorithm algo, World world, PathContext ctx, int sx, int sy, int gx, int gy, int maxNodes, IntList out) {
+        switch (algo) {
+            case ASTAR: return heuristicSearch(world, ctx, sx, sy, gx, gy, maxNodes, out, false);
+            case JPS:   return heuristicSearch(world, ctx, sx, sy, gx, gy, maxNodes, out, true);
+            default:    return bfs(world, ctx, sx, sy, gx, gy, maxNodes, out);
+        }
+    }
+
+    private static boolean bfs(World world, PathContext ctx, int sx, int sy, int gx, int gy, int maxNodes, IntList out) {
+        out.clear();
+        ctx.lastExpanded = 0;
+        ctx.lastScanned = 0;
+        if (!world.inBounds(sx, sy) || !world.inBounds(gx, gy)) return false;
+        if (world.isSolid(gx, gy) || world.isSolid(sx, sy)) return false;
+        if (sx == gx && sy == gy) return false;
 
         int w = world.w, h = world.h;
-        int[][] prev = new int[w*h][2];
-        boolean[] vis = new boolean[w*h];
-        for (int i = 0; i < prev.length; i++) { prev[i][0] = -1; prev[i][1] = -1; }
+        int[] prev = ctx.prev, mark = ctx.mark, q = ctx.queue;
+        int mask = ctx.queueMask;
+        int stamp = ctx.nextStamp();
 
-        Deque<int[]> q = new ArrayDeque<>();
-        q.add(new int[]{sx, sy});
-        vis[sy*w + sx] = true;
+        int start = sy*w + sx;
+        int goal = gy*w + gx;
+
+        int head = 0, tail = 0;
+        q[tail++ & mask] = start;
+        mark[start] = stamp;
+        prev[start] = -1;
 
         int visited = 0;
-        int[] dirs = {1,0,-1,0, 0,1,0,-1};
 
-        while (!q.isEmpty() && visited < maxNodes) {
-            int[] n = q.removeFirst();
-            int x = n[0], y = n[1];
+        while (head != tail && visited < maxNodes) {
+            int idx = q[head++ & mask];
             visited++;
 
-            if (x == gx && y == gy) break;
-
-            for (int i = 0; i < 8; i += 2) {
-                int nx = x + dirs[i];
-                int ny = y + dirs[i+1];
-                if (!world.inBounds(nx, ny) || world.isSolid(nx, ny)) continue;
-                int idx = ny*w + nx;
-                if (vis[idx]) continue;
-                vis[idx] = true;
-                prev[idx][0] = x;
-                prev[idx][1] = y;
-                q.addLast(new int[]{nx, ny});
+            if (idx == goal) break;
+
+            int x = idx % w, y = idx / w;
+            if (x+1 < w  && mark[idx+1] != stamp && !world.isSolid(x+1, y)) { mark[idx+1] = stamp; prev[idx+1] = idx; q[tail++ & mask] = idx+1; }
+            if (x-1 >= 0 && mark[idx-1] != stamp && !world.isSolid(x-1, y)) { mark[idx-1] = stamp; prev[idx-1] = idx; q[tail++ & mask] = idx-1; }
+            if (y+1 < h  && mark[idx+w] != stamp && !world.isSolid(x, y+1)) { mark[idx+w] = stamp; prev[idx+w] = idx; q[tail++ & mask] = idx+w; }
+            if (y-1 >= 0 && mark[idx-w] != stamp && !world.isSolid(x, y-1)) { mark[idx-w] = stamp; prev[idx-w] = idx; q[tail++ & mask] = idx-w; }
+        }
+        ctx.lastExpanded = visited;
+
+        if (mark[goal] != stamp) return false;
+
+        // walk back from goal to start, then flip
+        for (int c = goal; c != start && c >= 0; c = prev[c]) out.add(c);
+        out.reverse();
+        return true;
+    }
+
+    private static boolean heuristicSearch(World world, PathContext ctx, int sx, int sy, int gx, int gy, int maxNodes, IntList out, boolean jump) {
+        out.clear();
+        ctx.lastExpanded = 0;
+        ctx.lastScanned = 0;
+        if (!world.inBounds(sx, sy) || !world.inBounds(gx, gy)) return false;
+        if (world.isSolid(gx, gy) || world.isSolid(sx, sy)) return false;
+        if (sx == gx && sy == gy) return false;
+
+        int w = world.w;
+        int[] prev = ctx.prev, mark = ctx.mark, g = ctx.g, closed = ctx.closed;
+        int stamp = ctx.nextStamp();
+
+        int start = sy*w + sx;
+        int goal = gy*w + gx;
+
+        ctx.heapSize = 0;
+        mark[start] = stamp;
+        g[start] = 0;
+        prev[start] = -1;
+        ctx.heapPush(start, key(0, Math.abs(sx-gx) + Math.abs(sy-gy)));
+
+        int expanded = 0;
+        boolean found = false;
+
+        while (ctx.heapSize > 0 && expanded < maxNodes) {
+            int idx = ctx.heapPop();
+            if (closed[idx] == stamp) continue; // stale duplicate
+            closed[idx] = stamp;
+            expanded++;
+
+            if (idx == goal) { found = true; break; }
+
+            int x = idx % w, y = idx / w;
+            int p = prev[idx];
+            // direction we came from, so we don't jump straight back
+            int fromDx = p < 0 ? 0 : Integer.signum(x - p % w);
+            int fromDy = p < 0 ? 0 : Integer.signum(y - p / w);
+
+            for (int d = 0; d < 4; d++) {
+                int dx = DIRS[d*2], dy = DIRS[d*2+1];
+                if (dx == -fromDx && dy == -fromDy) continue;
+
+                int nb;
+                if (!jump) {
+                    nb = world.isSolid(x+dx, y+dy) ? -1 : (y+dy)*w + (x+dx);
+                } else if (dy == 0) {
+                    nb = jumpH(world, ctx, x, y, dx, gx, gy);
+                } else {
+                    nb = jumpV(world, ctx, x, y, dy, gx, gy);
+                }
+                if (nb < 0 || closed[nb] == stamp) continue;
+
+                int nx = nb % w, ny = nb / w;
+                int ng = g[idx] + Math.abs(nx-x) + Math.abs(ny-y);
+                if (mark[nb] == stamp && g[nb] <= ng) continue;
+                mark[nb] = stamp;
+                g[nb] = ng;
+                prev[nb] = idx;
+                ctx.heapPush(nb, key(ng, Math.abs(nx-gx) + Math.abs(ny-gy)));
             }
         }
+        ctx.lastExpanded = expanded;
+        if (!found) return false;
+
+        // prev links jump points (or single steps for A*), fill in the straight runs between them
+        for (int c = goal; c != start; c = prev[c]) {
+            int p = prev[c];
+            int px = p % w, py = p / w;
+            int x = c % w, y = c / w;
+            int stepX = Integer.signum(px - x), stepY = Integer.signum(py - y);
+            while (x != px || y != py) {
+                out.add(y*w + x);
+                x += stepX; y += stepY;
+            }
+        }
+        out.reverse();
+        return true;
+    }
 
-        if (!vis[gy*w + gx]) return List.of();
+    private static final int[] DIRS = {1,0, -1,0, 0,1, 0,-1};
 
-        // reconstruct path from goal back to start
-        List<int[]> rev = new ArrayList<>();
-        int cx = gx, cy = gy;
-        while (!(cx == sx && cy == sy)) {
-            rev.add(new int[]{cx, cy});
-            int[] p = prev[cy*w + cx];
-            cx = p[0]; cy = p[1];
-            if (cx < 0) break;
+    // lower f first, ties go to the node with more g (closer to the goal)
+    private static long key(int g, int h) {
+        return ((long)(g + h) << 32) | (Integer.MAX_VALUE - g);
+    }
+
+    // horizontal runs stop at the goal or where a vertical neighbour opens up that the row before couldn't reach
+    private static int jumpH(World world, PathContext ctx, int x, int y, int dx, int gx, int gy) {
+        while (true) {
+            x += dx;
+            if (world.isSolid(x, y)) return -1;
+            ctx.lastScanned++;
+            if (x == gx && y == gy) return y*world.w + x;
+            if (!world.isSolid(x, y-1) && world.isSolid(x-dx, y-1)) return y*world.w + x;
+            if (!world.isSolid(x, y+1) && world.isSolid(x-dx, y+1)) return y*world.w + x;
         }
+    }
 
-        // reverse into forward list
-        List<int[]> fwd = new ArrayList<>();
-        for (int i = rev.size() - 1; i >= 0; i--) fwd.add(rev.get(i));
-        return fwd;
+    // vertical runs look sideways every step, like the diagonal case in 8-connected JPS
+    private static int jumpV(World world, PathContext ctx, int x, int y, int dy, int gx, int gy) {
+        while (true) {
+            y += dy;
+            if (world.isSolid(x, y)) return -1;
+            ctx.lastScanned++;
+            if (x == gx && y == gy) return y*world.w + x;
+            if (jumpH(world, ctx, x, y, 1, gx, gy) >= 0 || jumpH(world, ctx, x, y, -1, gx, gy) >= 0) return y*world.w + x;
+        }
     }
-}
\ No newline at end of file
+}
@@ -10,44 +10,51 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 // one of the most challenging stuff I made in my life well not harder than dynamic fluid but again so much pain
 //I'm happy that it worked and jesus last version I wrote 1-2k lines but now that I seprated them it looks clean man
 
 public final class PlatformerSprint {
     private final HudRenderer hud = new HudRenderer();
-
-    private World world;
-    private Player player;
-    private final List<Enemy> enemies = new ArrayList<>();
-    private final ProjectileSystem projectiles = new ProjectileSystem();
-
-    private ViewMode view = ViewMode.SIDE;
-    private int rotDeg = 0;
+    private final WorldRenderer worldRenderer = new WorldRenderer();
+    private final LowResTarget lowRes = new LowResTarget();
+    private int renderTarget = GameConfig.RENDER_TARGET;
+
+    private final GameSimulation sim = new GameSimulation(System.nanoTime());
+    private final SimInput input = new SimInput();
+    private InputRecorder recorder;
+    private MetricsServer metrics;
+    private AnalyticsManager analytics;
+    private SessionLogWriter sessionLog;
+    private GameEventBus.Background analyticsFeed;
+    private final HitchDetector hitches = new HitchDetector((long)(GameConfig.HITCH_MS * 1e6),
+            GameConfig.HITCH_LOG ? Paths.get("hitches", "hitches.csv") : null, GameConfig.HITCH_LOG_MAX_BYTES);
+    private final TelemetryRecorder telemetry = GameConfig.TELEMETRY
+            ? new TelemetryRecorder(GameConfig.TELEMETRY_SAMPLES, Paths.get("telemetry"), sim.seed(), GameConfig.TELEMETRY_MAX_FILES) : null;
 
     private boolean showStats = true;
     private boolean showPanel = false;
     private boolean showHelp = false;
 
-    private boolean hasGemKey = false;
-    private boolean exitOpen = false;
-
-    private final StatsTracker stats = new StatsTracker();
-
-    private boolean up, down, left, right;
     private boolean shootHeld;
-    private boolean shootPressedEdge;
     private boolean tabHeldEdge;
     private boolean f1HeldEdge;
     private boolean hHeldEdge;
-    private boolean qHeldEdge;
-    private boolean eHeldEdge;
-    private boolean rHeldEdge;
+    private boolean f2HeldEdge;
+    private boolean f3HeldEdge;
+    private boolean f4HeldEdge;
 
     private double accumulator = 0;
-    private int approxWalkable = 1;
+
+    private int runsSeen = 1;
+    private long sessionLogLost;
+
+    private long lastSignature;
+    private int unchangedFrames;
+    private boolean wake;
 
     public void start(Stage stage) {
         Canvas canvas = new Canvas(GameConfig.WINDOW_W, GameConfig.WINDOW_H);
@@ -60,352 +67,331 @@ public final class PlatformerSprint {
         canvas.heightProperty().bind(scene.heightProperty());
 
         setupInput(scene);
+        startRecording();
+        startMetrics();
+        startSessionLog();
+        stage.setOnCloseRequest(e -> shutdown());
 
         stage.setTitle("Halloween Puzzle (TOP/SIDE) - 8bit + Analytics");
         stage.setScene(scene);
         stage.show();
 
-        resetGame();
-
         GraphicsContext g = canvas.getGraphicsContext2D();
 
         AnimationTimer timer = new AnimationTimer() {
             long last = 0;
 
             @Override public void handle(long now) {
+                // idle: only do a pulse every 1/IDLE_PULSE_HZ. last isn't touched so the sim catches up on the next one
+                boolean idle = GameConfig.RENDER_ON_DEMAND && unchangedFrames >= GameConfig.IDLE_AFTER_FRAMES;
+                long idlePeriod = 1_000_000_000L / GameConfig.IDLE_PULSE_HZ;
+                if (idle && !wake && last != 0 && now - last < idlePeriod) return;
+                int hitchesBefore = hitches.hitches();
+                hitches.frameStart(System.nanoTime(), idle && !wake ? idlePeriod : 0);
+                if (hitches.hitches() != hitchesBefore) sim.events().publish(GameEventBus.HITCH, hitches.lastHitchMs());
+                wake = false;
+                // toggled before any begin() so a frame never mixes a zero start with a real end
+                FrameProfiler prof = sim.profiler();
+                if (f3HeldEdge) { prof.toggle(); f3HeldEdge = false; }
+                long frameT0 = prof.begin();
+
                 if (last == 0) last = now;
                 double rawFrameDt = (now - last) / 1e9;
                 last = now;
 
                 if (rawFrameDt < 0) rawFrameDt = 0;
-                stats.renderFrame((float)rawFrameDt);
+                sim.stats().renderFrame((float)rawFrameDt);
 
                 double frameDt = Math.min(rawFrameDt, GameConfig.MAX_FRAME_DT);
                 accumulator += frameDt;
 
+                long t0 = prof.begin();
                 if (tabHeldEdge) { showStats = !showStats; tabHeldEdge = false; }
                 if (f1HeldEdge) { showPanel = !showPanel; f1HeldEdge = false; }
                 if (hHeldEdge) { showHelp = !showHelp; hHeldEdge = false; }
-                if (rHeldEdge) { resetGame(); rHeldEdge = false; }
-
-                if (view == ViewMode.SIDE) {
-                    if (qHeldEdge) { rotDeg = MathUtil.wrapDeg(rotDeg - GameConfig.ROT_STEP_DEG); stats.rotated(); qHeldEdge = false; }
-                    if (eHeldEdge) { rotDeg = MathUtil.wrapDeg(rotDeg + GameConfig.ROT_STEP_DEG); stats.rotated(); eHeldEdge = false; }
-                } else {
-                    qHeldEdge = false; eHeldEdge = false;
-                }
+                if (f2HeldEdge) { renderTarget = (renderTarget + 1) % GameConfig.RENDER_W.length; f2HeldEdge = false; }
+                if (f4HeldEdge) { if (telemetry != null) telemetry.dump(); f4HeldEdge = false; }
+                prof.end(FrameProfiler.INPUT, t0);
 
+                long simT0 = System.nanoTime();
                 int steps = 0;
                 while (accumulator >= GameConfig.FIXED_DT && steps < GameConfig.MAX_STEPS_PER_FRAME) {
-                    step(GameConfig.FIXED_DT);
+                    t0 = prof.begin();
+                    int bits = input.toBits();
+                    prof.end(FrameProfiler.INPUT, t0);
+
+                    sim.tick(input, GameConfig.FIXED_DT);
+
+                    t0 = prof.begin();
+                    if (recorder != null) recordTick(bits);
+                    prof.end(FrameProfiler.INPUT, t0);
                     accumulator -= GameConfig.FIXED_DT;
                     steps++;
                 }
+                long simNanos = System.nanoTime() - simT0;
+                if (sim.stats().runs() != runsSeen) {
+                    runsSeen = sim.stats().runs();
+                    exportHeatmap();
+                    checkSessionLog();
+                    if (telemetry != null) {
+                        telemetry.dump();
+                        telemetry.newRun();
+                    }
+                }
+
+                double dropped = 0;
                 if (steps >= GameConfig.MAX_STEPS_PER_FRAME) {
                     // drop excess time instead of slowing forever
+                    dropped = accumulator;
                     accumulator = 0;
                 }
+                if (JfrEvents.FIXED_STEP.isEnabled()) {
+                    JfrEvents.FixedStep ev = new JfrEvents.FixedStep();
+                    ev.ticks = steps;
+                    ev.droppedNanos = (long)(dropped * 1e9);
+                    ev.frameNanos = (long)(rawFrameDt * 1e9);
+                    ev.commit();
+                }
 
-                render(g, canvas.getWidth(), canvas.getHeight());
+                long renderT0 = System.nanoTime();
+                double cw = canvas.getWidth(), ch = canvas.getHeight();
+                long sig = frameSignature(cw, ch);
+                if (!GameConfig.RENDER_ON_DEMAND || sig != lastSignature) {
+                    render(g, cw, ch);
+                    lastSignature = sig;
+                    unchangedFrames = 0;
+                } else {
+                    unchangedFrames++; // canvas keeps the last frame, nothing to do
+                }
+                long renderNanos = System.nanoTime() - renderT0;
+                hitches.frameEnd(simNanos, renderNanos, steps, dropped > 0);
+                // same numbers StatsTracker.renderFrame uses, in order with the run's events
+                sim.events().publish(GameEventBus.FRAME, 0, 0, (float)rawFrameDt, sim.stats().memMB());
+                if (telemetry != null) telemetry.record((long)(rawFrameDt * 1e9), steps, sim);
+                if (metrics != null) {
+                    metrics.frame((long)(rawFrameDt * 1e9), simNanos, renderNanos, dropped > 0, dropped);
+                    metrics.publish(now, sim, hitches);
+                }
+
+                prof.end(FrameProfiler.FRAME, frameT0);
+                prof.endFrame();
             }
         };
         timer.start();
     }
 
-    private void resetGame() {
-        long seed = System.nanoTime();
-        world = new World(seed);
-
-        player = new Player(world.startX, world.startY);
-
-        enemies.clear();
-        projectiles.bullets.clear();
-
-        spawnEnemies();
-
-        hasGemKey = false;
-        exitOpen = false;
-        view = ViewMode.SIDE;
-        rotDeg = 0;
+    // world signature plus everything the HUD and overlays print. fps/mem/apm aren't hashed directly (they'd never
+    // settle), they ride on the whole-second timer so an idle HUD refreshes once a second
+    private long frameSignature(double w, double h) {
+        StatsTracker st = sim.stats();
+        Player player = sim.player();
+        long s = worldRenderer.signature(sim);
+        s = GameSimulation.mix(s, (long)w << 32 | (long)h);
+        s = GameSimulation.mix(s, renderTarget);
+        s = GameSimulation.mix(s, (showStats ? 1 : 0) | (showPanel ? 2 : 0) | (showHelp ? 4 : 0) | (sim.hasGemKey() ? 8 : 0));
+        s = GameSimulation.mix(s, player.hp);
+        if (sim.profiler().enabled()) s = GameSimulation.mix(s, sim.profiler().frames()); // graph scrolls every frame
+        if (showStats) {
+            s = GameSimulation.mix(s, (int)st.t());
+            s = GameSimulation.mix(s, st.score());
+            s = GameSimulation.mix(s, st.playerShots());
+            s = GameSimulation.mix(s, st.playerHits());
+            s = GameSimulation.mix(s, st.enemyShots());
+            s = GameSimulation.mix(s, st.enemyHits());
+            s = GameSimulation.mix(s, (int)st.distance());
+            s = GameSimulation.mix(s, st.switches());
+            s = GameSimulation.mix(s, st.rotations());
+            s = GameSimulation.mix(s, st.candies() * 1000 + st.gems());
+            s = GameSimulation.mix(s, st.bumps());
+        }
+        return s;
+    }
 
-        approxWalkable = estimateWalkableTiles();
-        accumulator = 0;
+    private void exportHeatmap() {
+        if (!GameConfig.EXPORT_HEATMAPS) return;
+        Path file = Paths.get("heatmaps", "heatmap-" + sim.seed() + "-" + (runsSeen - 1) + ".csv");
+        try {
+            sim.stats().lastRun().exportCsv(file);
+        } catch (IOException e) {
+            System.err.println("heatmap export to " + file + " failed: " + e);
+        }
     }
 
-    private int estimateWalkableTiles() {
-        int walk = 0;
-        for (int y = 0; y < world.h; y++) for (int x = 0; x < world.w; x++) if (!world.isSolid(x, y)) walk++;
-        return Math.max(1, walk);
+    private void shutdown() {
+        stopRecording();
+        hitches.close();
+        if (telemetry != null) telemetry.close();
+        if (metrics != null) metrics.close();
+        if (analyticsFeed != null) analyticsFeed.close();
+        if (sessionLog != null) {
+            IOException err = null;
+            try {
+                sessionLog.close();
+            } catch (IOException e) {
+                err = e;
+            }
+            if (err != null || sessionLog.failures() > 0 || sessionLog.dropped() > 0) {
+                System.err.println("session log " + sessionLog.file() + ": " + sessionLog.written() + " runs written, "
+                        + sessionLog.failures() + " failed, " + sessionLog.dropped() + " dropped" + (err != null ? " (" + err + ")" : ""));
+            }
+        }
     }
 
-    private void spawnEnemies() {
-        int count = GameConfig.ENEMY_COUNT_MIN + world.rng.nextInt(GameConfig.ENEMY_COUNT_MAX - GameConfig.ENEMY_COUNT_MIN + 1);
-        int placed = 0;
-        int safety = 0;
+    // run end. the writer trails us by a flush, so a failure usually shows up one run later. quiet unless the count moved
+    private void checkSessionLog() {
+        if (sessionLog == null) return;
+        long lost = sessionLog.failures() + sessionLog.dropped();
+        if (lost == sessionLogLost) return;
+        sessionLogLost = lost;
+        System.err.println("session log " + sessionLog.file() + ": " + sessionLog.failures() + " runs failed to write, "
+                + sessionLog.dropped() + " dropped (last error: " + sessionLog.lastError() + ")");
+    }
 
-        while (placed < count && safety++ < 20000) {
-            int tx = 2 + world.rng.nextInt(world.w-4);
-            int ty = 2 + world.rng.nextInt(world.h-4);
-            if (world.isSolid(tx, ty)) continue;
+    private void startSessionLog() {
+        if (!GameConfig.SESSION_LOG) return;
+        try {
+            sessionLog = new SessionLogWriter(Paths.get("sessions", "sessions.bin"));
+        } catch (IOException e) {
+            System.err.println("session log off, can't open sessions/sessions.bin: " + e);
+            return;
+        }
+        analytics = new AnalyticsManager();
+        analytics.logTo(sessionLog);
+        analyticsFeed = sim.events().consume(analytics, "analytics-events");
+    }
 
-            float x = world.tileCenterX(tx);
-            float y = world.tileCenterY(ty);
+    private void startMetrics() {
+        if (GameConfig.METRICS_PORT <= 0) return;
+        try {
+            metrics = new MetricsServer(GameConfig.METRICS_PORT);
+        } catch (IOException ignored) {
+            metrics = null; // port taken (another kiosk instance?), play on without it
+        }
+    }
 
-            float dx = x - player.x, dy = y - player.y;
-            if (dx*dx + dy*dy < (GameConfig.TILE*10f)*(GameConfig.TILE*10f)) continue;
+    private void startRecording() {
+        if (!GameConfig.RECORD_REPLAYS) return;
+        try {
+            recorder = new InputRecorder(Paths.get("replays", "replay-" + sim.seed() + ".bin"), sim.seed(), GameConfig.REPLAY_HASH_INTERVAL);
+        } catch (IOException e) {
+            System.err.println("replay recording off, can't open replays/replay-" + sim.seed() + ".bin: " + e);
+            recorder = null;
+        }
+    }
 
-            boolean close = false;
-            for (Enemy e : enemies) {
-                float ex = e.x - x, ey = e.y - y;
-                if (ex*ex + ey*ey < (GameConfig.TILE*3f)*(GameConfig.TILE*3f)) { close = true; break; }
-            }
-            if (close) continue;
+    private void recordTick(int bits) {
+        try {
+            recorder.recordTick(bits, sim);
+        } catch (IOException e) {
+            // writes are buffered, so the last few ticks before this one may be missing too
+            System.err.println("replay " + recorder.file() + " stopped at tick " + sim.ticks() + ": " + e);
+            stopRecording();
+        }
+    }
 
-            enemies.add(new Enemy(x, y));
-            placed++;
+    private void stopRecording() {
+        if (recorder == null) return;
+        try {
+            recorder.close();
+        } catch (IOException e) {
+            System.err.println("replay " + recorder.file() + " may be truncated, close failed at tick " + sim.ticks() + ": " + e);
         }
+        recorder = null;
     }
 
     private void setupInput(Scene scene) {
         scene.setOnKeyPressed(e -> {
             KeyCode k = e.getCode();
-            if (k == KeyCode.W || k == KeyCode.UP) up = true;
-            if (k == KeyCode.S || k == KeyCode.DOWN) down = true;
-            if (k == KeyCode.A || k == KeyCode.LEFT) left = true;
-            if (k == KeyCode.D || k == KeyCode.RIGHT) right = true;
+            wake = true;
+            if (k == KeyCode.W || k == KeyCode.UP) input.up = true;
+            if (k == KeyCode.S || k == KeyCode.DOWN) input.down = true;
+            if (k == KeyCode.A || k == KeyCode.LEFT) input.left = true;
+            if (k == KeyCode.D || k == KeyCode.RIGHT) input.right = true;
 
             if (k == KeyCode.SPACE) {
-                if (!shootHeld) shootPressedEdge = true;
+                if (!shootHeld) input.shootPressed = true;
                 shootHeld = true;
             }
 
             if (k == KeyCode.TAB) if (!tabHeldEdge) tabHeldEdge = true;
             if (k == KeyCode.F1) if (!f1HeldEdge) f1HeldEdge = true;
             if (k == KeyCode.H) if (!hHeldEdge) hHeldEdge = true;
-            if (k == KeyCode.Q) if (!qHeldEdge) qHeldEdge = true;
-            if (k == KeyCode.E) if (!eHeldEdge) eHeldEdge = true;
-            if (k == KeyCode.R) if (!rHeldEdge) rHeldEdge = true;
-
-            if (k == KeyCode.ESCAPE) Platform.exit();
+            if (k == KeyCode.F2) if (!f2HeldEdge) f2HeldEdge = true;
+            if (k == KeyCode.F3) if (!f3HeldEdge) f3HeldEdge = true;
+            if (k == KeyCode.F4) if (!f4HeldEdge) f4HeldEdge = true;
+            // rotation and restart are sim input too, so the tick that sees them is the one that applies them
+            if (k == KeyCode.Q) input.rotateLeft = true;
+            if (k == KeyCode.E) input.rotateRight = true;
+            if (k == KeyCode.R) input.restart = true;
+
+            if (k == KeyCode.C) worldRenderer.toggleFollow();
+            if (k == KeyCode.EQUALS || k == KeyCode.ADD) worldRenderer.zoomIn();
+            if (k == KeyCode.MINUS || k == KeyCode.SUBTRACT) worldRenderer.zoomOut();
+
+            if (k == KeyCode.ESCAPE) { shutdown(); Platform.exit(); }
         });
 
         scene.setOnKeyReleased(e -> {
             KeyCode k = e.getCode();
-            if (k == KeyCode.W || k == KeyCode.UP) up = false;
-            if (k == KeyCode.S || k == KeyCode.DOWN) down = false;
-            if (k == KeyCode.A || k == KeyCode.LEFT) left = false;
-            if (k == KeyCode.D || k == KeyCode.RIGHT) right = false;
+            wake = true;
+            if (k == KeyCode.W || k == KeyCode.UP) input.up = false;
+            if (k == KeyCode.S || k == KeyCode.DOWN) input.down = false;
+            if (k == KeyCode.A || k == KeyCode.LEFT) input.left = false;
+            if (k == KeyCode.D || k == KeyCode.RIGHT) input.right = false;
             if (k == KeyCode.SPACE) shootHeld = false;
         });
     }
 
-    private void step(float dt) {
-        float mx = 0f, my = 0f;
-        if (left) mx -= 1f;
-        if (right) mx += 1f;
-        if (up) my -= 1f;
-        if (down) my += 1f;
-
-        float speedNow = MathUtil.len(mx, my) * GameConfig.PLAYER_SPEED;
-
-        boolean inThreat = false;
-        for (Enemy e : enemies) {
-            if (!e.alive) continue;
-            float dx = e.x - player.x, dy = e.y - player.y;
-            if (dx*dx + dy*dy < GameConfig.THREAT_RADIUS * GameConfig.THREAT_RADIUS) { inThreat = true; break; }
-        }
-
-        int tileKey = world.toTileY(player.y) * world.w + world.toTileX(player.x);
-        stats.simStep(dt, speedNow, inThreat, tileKey, approxWalkable);
-
-        player.moveWithCollision(world, mx, my, dt, stats);
-        player.update(world, dt);
-
-        if (shootPressedEdge) {
-            shootPressedEdge = false;
-            if (player.fireCooldown <= 0f && player.hp > 0) {
-                player.fireCooldown = GameConfig.PLAYER_FIRE_COOLDOWN;
-                float ax = player.aimX, ay = player.aimY;
-                if (Math.abs(ax) < 1e-4f && Math.abs(ay) < 1e-4f) { ax = 1f; ay = 0f; }
-                projectiles.spawnPlayerBullet(player.x + ax*(player.r+7f), player.y + ay*(player.r+7f), ax, ay);
-                stats.playerShot();
-            }
-        }
-
-        for (Pickup p : world.pickups) {
-            if (p.collected) continue;
-            float dx = p.x - player.x, dy = p.y - player.y;
-            float rr = player.r + 10f;
-            if (dx*dx + dy*dy <= rr*rr) {
-                p.collected = true;
-                if (p.type == PickupType.CANDY) stats.collectedCandy();
-                if (p.type == PickupType.GEM) { stats.collectedGem(); hasGemKey = true; exitOpen = true; }
-            }
-        }
-
-        for (Hole h : world.holes) {
-            float dx = h.x - player.x, dy = h.y - player.y;
-            if (dx*dx + dy*dy <= (GameConfig.TILE*0.35f)*(GameConfig.TILE*0.35f)) {
-                view = (view == ViewMode.TOP) ? ViewMode.SIDE : ViewMode.TOP;
-                stats.switchedView();
-                player.x += player.aimX * 18f;
-                player.y += player.aimY * 18f;
-                break;
-            }
-        }
-
-        for (Enemy e : enemies) e.update(world, dt);
-        for (Enemy e : enemies) e.think(world, player, dt, enemies, projectiles, stats);
-
-        projectiles.update(world, player, enemies, dt, stats);
+    private void render(GraphicsContext g, double w, double h) {
+        JfrEvents.FrameRender ev = JfrEvents.FRAME_RENDER.isEnabled() ? new JfrEvents.FrameRender() : null;
+        if (ev != null) ev.begin();
 
-        float ex = world.exitX - player.x, ey = world.exitY - player.y;
-        if (exitOpen && ex*ex + ey*ey <= (GameConfig.TILE*0.45f)*(GameConfig.TILE*0.45f)) resetGame();
-        if (player.hp <= 0) resetGame();
-    }
+        FrameProfiler prof = sim.profiler();
+        long t0 = prof.begin();
 
-    private void render(GraphicsContext g, double w, double h) {
         g.setFill(Color.BLACK);
         g.fillRect(0, 0, w, h);
 
-        double viewW = w;
-        double viewH = h - GameConfig.HUD_H;
-
-        double vx0 = 0;
-        double vy0 = GameConfig.HUD_H;
-
-        g.setFill(Color.rgb(255,255,255,0.06));
-        for (int i = 0; i < 70; i++) {
-            double sx = (i * 97) % viewW;
-            double sy = (i * 53) % viewH;
-            g.fillRect(sx, vy0 + sy, 2, 2);
+        int tw = GameConfig.RENDER_W[renderTarget], th = GameConfig.RENDER_H[renderTarget];
+        if (tw == 0) {
+            worldRenderer.draw(g, sim, 0, GameConfig.HUD_H, w, h - GameConfig.HUD_H, 1f);
+        } else {
+            // world at low res, HUD stays sharp at window res
+            GraphicsContext lg = lowRes.begin(g, tw, th, 0, GameConfig.HUD_H, w, h - GameConfig.HUD_H);
+            // one target pixel ends up k window pixels wide, so the follow zoom matches native mode at any window size
+            worldRenderer.draw(lg, sim, 0, 0, tw, th, (float)(1 / lowRes.scale()));
+            lowRes.end();
         }
+        prof.end(FrameProfiler.RENDER_WORLD, t0);
 
-        Camera cam = new Camera();
-        Camera.Projector proj = (view == ViewMode.TOP) ? Projection.top(world) : Projection.sideIso(world, rotDeg);
-        cam.fitToView(proj, (float)viewW, (float)viewH, world);
-
-        if (view == ViewMode.SIDE) {
-            g.setStroke(Color.rgb(255,255,255,0.05));
-            for (int ty = 0; ty <= world.h; ty++) {
-                float wy = ty * GameConfig.TILE;
-                float[] a = proj.project(0, wy);
-                float[] b = proj.project(world.w * GameConfig.TILE, wy);
-                g.strokeLine(vx0 + cam.sx(a[0]), vy0 + cam.sy(a[1]), vx0 + cam.sx(b[0]), vy0 + cam.sy(b[1]));
-            }
-            for (int tx = 0; tx <= world.w; tx++) {
-                float wx = tx * GameConfig.TILE;
-                float[] a = proj.project(wx, 0);
-                float[] b = proj.project(wx, world.h * GameConfig.TILE);
-                g.strokeLine(vx0 + cam.sx(a[0]), vy0 + cam.sy(a[1]), vx0 + cam.sx(b[0]), vy0 + cam.sy(b[1]));
-            }
-        }
-
-        for (int y = 0; y < world.h; y++) {
-            for (int x = 0; x < world.w; x++) {
-                if (!world.isSolid(x, y)) continue;
+        t0 = prof.begin();
 
-                float wx = x * GameConfig.TILE;
-                float wy = y * GameConfig.TILE;
-                float[] p = proj.project(wx + GameConfig.TILE*0.5f, wy + GameConfig.TILE*0.5f);
-
-                double sx = vx0 + cam.sx(p[0]);
-                double sy = vy0 + cam.sy(p[1]);
-                double sz = cam.scale * 0.95;
-
-                if (view == ViewMode.TOP) {
-                    g.setFill(Color.rgb(130,130,140,0.95));
-                    g.fillRect(sx - GameConfig.TILE*0.5*sz, sy - GameConfig.TILE*0.5*sz, GameConfig.TILE*sz, GameConfig.TILE*sz);
-                } else {
-                    double bw = GameConfig.TILE * 0.55 * sz;
-                    double bh = GameConfig.TILE * 0.38 * sz;
-                    double hgt = GameConfig.TILE * 0.95 * sz;
-
-                    g.setFill(Color.rgb(120,120,130,0.85));
-                    g.fillRoundRect(sx - bw/2, sy - bh/2 - hgt, bw, bh, 6, 6);
-
-                    g.setFill(Color.rgb(150,150,160,0.85));
-                    g.fillRoundRect(sx - bw/2, sy - bh/2, bw, bh, 6, 6);
-                }
-            }
-        }
-
-        for (Hole hole : world.holes) {
-            float[] p = proj.project(hole.x, hole.y);
-            double sx = vx0 + cam.sx(p[0]);
-            double sy = vy0 + cam.sy(p[1]);
-            double rr = 10 * cam.scale;
-
-            g.setStroke(Color.rgb(160,90,255,0.55));
-            g.strokeOval(sx - rr, sy - rr, rr*2, rr*2);
-            g.setStroke(Color.rgb(160,90,255,0.25));
-            g.strokeOval(sx - rr*1.5, sy - rr*1.5, rr*3, rr*3);
-        }
-
-        for (Pickup pck : world.pickups) {
-            if (pck.collected) continue;
-            float[] p = proj.project(pck.x, pck.y);
-            double sx = vx0 + cam.sx(p[0]);
-            double sy = vy0 + cam.sy(p[1]);
-            double rr = (pck.type == PickupType.CANDY ? 6 : 7) * cam.scale;
-
-            if (pck.type == PickupType.CANDY) g.setFill(Color.rgb(255,160,40,0.95));
-            else g.setFill(Color.rgb(120,210,255,0.95));
-            g.fillOval(sx-rr, sy-rr, rr*2, rr*2);
-        }
-
-        float[] exitP = proj.project(world.exitX, world.exitY);
-        double ex = vx0 + cam.sx(exitP[0]);
-        double ey = vy0 + cam.sy(exitP[1]);
-        double es = 18 * cam.scale;
-        g.setFill(exitOpen ? Color.rgb(80,255,120,0.95) : Color.rgb(80,255,120,0.25));
-        g.fillRect(ex - es/2, ey - es/2, es, es);
-
-        for (Enemy e : enemies) {
-            if (!e.alive) continue;
-            float[] p = proj.project(e.x, e.y);
-            double sx = vx0 + cam.sx(p[0]);
-            double sy = vy0 + cam.sy(p[1]);
-            double rr = 12 * cam.scale;
-
-            g.setFill(Color.rgb(255,80,105,0.85));
-            g.fillOval(sx-rr, sy-rr, rr*2, rr*2);
-
-            g.setFill(Color.rgb(255,255,255,0.70));
-            g.fillOval(sx-rr*0.35, sy-rr*0.15, rr*0.35, rr*0.35);
-            g.fillOval(sx+rr*0.05, sy-rr*0.15, rr*0.35, rr*0.35);
-        }
-
-        for (Bullet b : projectiles.bullets) {
-            float[] p = proj.project(b.x, b.y);
-            double sx = vx0 + cam.sx(p[0]);
-            double sy = vy0 + cam.sy(p[1]);
-            double rr = 3.6 * cam.scale;
-            g.setFill(b.fromPlayer ? Color.rgb(240,240,240,0.95) : Color.rgb(255,120,120,0.95));
-            g.fillOval(sx-rr, sy-rr, rr*2, rr*2);
-        }
-
-        float[] pp = proj.project(player.x, player.y);
-        double px = vx0 + cam.sx(pp[0]);
-        double py = vy0 + cam.sy(pp[1]);
-        double pr = 13 * cam.scale;
-
-        g.setFill(Color.rgb(255,165,60,0.95));
-        g.fillOval(px-pr, py-pr, pr*2, pr*2);
-        g.setFill(Color.rgb(30,30,30,0.85));
-        g.fillOval(px-pr*0.35, py-pr*0.15, pr*0.25, pr*0.25);
-        g.fillOval(px+pr*0.10, py-pr*0.15, pr*0.25, pr*0.25);
-
-        if (showStats) hud.draw(g, w, h, view, rotDeg, player, hasGemKey, exitOpen, stats, approxWalkable);
+        if (showStats) hud.draw(g, w, h, sim.view(), sim.rotDeg(), sim.player(), sim.hasGemKey(), sim.exitOpen(), sim.stats(), sim.approxWalkable());
+        if (showStats) hud.drawRenderStats(g, h, worldRenderer.queue(), hitches);
 
         if (showHelp || showPanel) {
             g.setFill(Color.rgb(0,0,0,0.65));
             g.fillRect(18, GameConfig.HUD_H + 18, 520, 140);
             g.setFill(Color.rgb(240,240,240,0.9));
             g.fillText(showHelp
-                            ? "Help: step on purple HOLE to switch TOP/SIDE. Q/E rotates SIDE view. Collect GEM to open EXIT."
+                            ? "Help: step on purple HOLE to switch TOP/SIDE. Q/E rotates SIDE view. C follow cam, +/- zoom, F2 pixel size, F3 profiler, F4 dump telemetry. Collect GEM to open EXIT."
                             : "Panel: placeholder (stable).",
                     30, GameConfig.HUD_H + 54);
         }
+
+        if (prof.enabled()) hud.drawProfiler(g, w, h, prof);
+        prof.end(FrameProfiler.RENDER_HUD, t0);
+
+        if (ev != null) {
+            ev.end();
+            if (ev.shouldCommit()) {
+                ev.view = sim.view().name();
+                ev.targetWidth = tw == 0 ? (int)w : tw;
+                ev.follow = worldRenderer.following();
+                ev.drawCalls = worldRenderer.queue().drawCalls();
+                ev.stateChanges = worldRenderer.queue().stateChanges();
+                ev.commit();
+            }
+        }
     }
 }
\ No newline at end of file
@@ -18,7 +18,7 @@ public final class Player extends Entity {
         fireCooldown = Math.max(0f, fireCooldown - dt);
     }
 
-    public void moveWithCollision(World world, float dx, float dy, float dt, StatsTracker stats) {
+    public void moveWithCollision(World world, float dx, float dy, float dt, GameEventBus events) {
         // normalize to avoid diagonal speed boosts
         float nx = MathUtil.normX(dx, dy);
         float ny = MathUtil.normY(dx, dy);
@@ -38,17 +38,17 @@ public final class Player extends Entity {
         if (collides(world)) {
             // resolve against nearby tiles
             resolveX(world, stepX);
-            stats.bump();
+            events.publish(GameEventBus.BUMP);
         }
 
         // Y axis
         y += stepY;
         if (collides(world)) {
             resolveY(world, stepY);
-            stats.bump();
+            events.publish(GameEventBus.BUMP);
         }
 
-        stats.addDistance(MathUtil.len(x-oldX, y-oldY));
+        events.publish(GameEventBus.PLAYER_MOVED, MathUtil.len(x-oldX, y-oldY));
     }
 
     private boolean collides(World world) {
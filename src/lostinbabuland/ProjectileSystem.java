@@ -1,70 +1,127 @@
-
 package lostinbabuland;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+// fixed-capacity bullet pool, one array per field. spawn appends, despawn swaps the last bullet in, both O(1)
+// when the pool is full new shots are dropped (and counted) instead of growing mid-fight
 
 public final class ProjectileSystem {
-    public final List<Bullet> bullets = new ArrayList<>();
+    private static final float BULLET_LIFE = 2.2f;
+
+    private final int capacity;
+    private final float[] x, y, vx, vy, life;
+    private final boolean[] fromPlayer;
+    private int count = 0;
+    private long dropped = 0;
+
+    private final View view = new View();
+    private final IntList nearby = new IntList(8);
+
+    public ProjectileSystem() {
+        this(GameConfig.BULLET_CAPACITY);
+    }
+
+    public ProjectileSystem(int capacity) {
+        this.capacity = capacity;
+        x = new float[capacity];
+        y = new float[capacity];
+        vx = new float[capacity];
+        vy = new float[capacity];
+        life = new float[capacity];
+        fromPlayer = new boolean[capacity];
+    }
+
+    public int size() { return count; }
+    public int capacity() { return capacity; }
+    public long dropped() { return dropped; }
+    public void clear() { count = 0; }
+
+    // read-only access for the renderer
+    public View view() { return view; }
+
+    public final class View {
+        private View() {}
+        public int size() { return count; }
+        public float x(int i) { return x[i]; }
+        public float y(int i) { return y[i]; }
+        public boolean fromPlayer(int i) { return fromPlayer[i]; }
+    }
 
     public void spawnPlayerBullet(float x, float y, float dirX, float dirY) {
         float nx = MathUtil.normX(dirX, dirY);
         float ny = MathUtil.normY(dirX, dirY);
-        bullets.add(new Bullet(x, y, nx * GameConfig.BULLET_SPEED, ny * GameConfig.BULLET_SPEED, true));
+        spawn(x, y, nx * GameConfig.BULLET_SPEED, ny * GameConfig.BULLET_SPEED, true);
     }
 
     public void spawnEnemyBullet(float x, float y, float dirX, float dirY) {
         float nx = MathUtil.normX(dirX, dirY);
         float ny = MathUtil.normY(dirX, dirY);
-        bullets.add(new Bullet(x, y, nx * GameConfig.BULLET_SPEED * 0.9f, ny * GameConfig.BULLET_SPEED * 0.9f, false));
+        spawn(x, y, nx * GameConfig.BULLET_SPEED * 0.9f, ny * GameConfig.BULLET_SPEED * 0.9f, false);
     }
 
-    public void update(World world, Player player, List<Enemy> enemies, float dt, StatsTracker stats) {
-        Iterator<Bullet> it = bullets.iterator();
-        while (it.hasNext()) {
-            Bullet b = it.next();
-            if (b.dead) { it.remove(); continue; }
+    private void spawn(float px, float py, float pvx, float pvy, boolean player) {
+        if (count == capacity) { dropped++; return; }
+        int i = count++;
+        x[i] = px; y[i] = py;
+        vx[i] = pvx; vy[i] = pvy;
+        life[i] = BULLET_LIFE;
+        fromPlayer[i] = player;
+    }
 
-            b.life -= dt;
-            if (b.life <= 0f) { it.remove(); continue; }
+    private void despawn(int i) {
+        int last = --count;
+        if (i == last) return;
+        x[i] = x[last]; y[i] = y[last];
+        vx[i] = vx[last]; vy[i] = vy[last];
+        life[i] = life[last];
+        fromPlayer[i] = fromPlayer[last];
+    }
 
-            float nx = b.x + b.vx * dt;
-            float ny = b.y + b.vy * dt;
+    public void update(World world, Player player, EnemyPool enemies, SpatialHash enemyGrid, float dt, GameEventBus events) {
+        int i = 0;
+        while (i < count) {
+            // after a despawn slot i holds the old last bullet, so don't advance
+            if (!step(i, world, player, enemies, enemyGrid, dt, events)) despawn(i);
+            else i++;
+        }
+    }
 
-            // wall collision
-            int tx = world.toTileX(nx);
-            int ty = world.toTileY(ny);
-            if (!world.inBounds(tx, ty) || world.isSolid(tx, ty)) {
-                it.remove();
-                continue;
-            }
+    // false when the bullet is spent
+    private boolean step(int i, World world, Player player, EnemyPool enemies, SpatialHash enemyGrid, float dt, GameEventBus events) {
+        life[i] -= dt;
+        if (life[i] <= 0f) return false;
 
-            b.x = nx; b.y = ny;
-
-            // hit tests
-            if (b.fromPlayer) {
-                for (Enemy e : enemies) {
-                    if (!e.alive) continue;
-                    float dx = e.x - b.x, dy = e.y - b.y;
-                    float rr = e.r + GameConfig.BULLET_RADIUS;
-                    if (dx*dx + dy*dy <= rr*rr) {
-                        e.alive = false;
-                        it.remove();
-                        stats.playerHitEnemy();
-                        stats.addScore(15);
-                        break;
-                    }
-                }
-            } else {
-                float dx = player.x - b.x, dy = player.y - b.y;
-                float rr = player.r + GameConfig.BULLET_RADIUS;
+        float nx = x[i] + vx[i] * dt;
+        float ny = y[i] + vy[i] * dt;
+
+        // wall collision
+        int tx = world.toTileX(nx);
+        int ty = world.toTileY(ny);
+        if (!world.inBounds(tx, ty) || world.isSolid(tx, ty)) return false;
+
+        x[i] = nx; y[i] = ny;
+
+        // hit tests
+        if (fromPlayer[i]) {
+            enemyGrid.queryRadius(nx, ny, GameConfig.ENEMY_RADIUS + GameConfig.BULLET_RADIUS, nearby);
+            for (int k = 0; k < nearby.size(); k++) {
+                int e = nearby.get(k);
+                if (!enemies.alive(e)) continue;
+                float dx = enemies.x(e) - nx, dy = enemies.y(e) - ny;
+                float rr = enemies.r() + GameConfig.BULLET_RADIUS;
                 if (dx*dx + dy*dy <= rr*rr) {
-                    it.remove();
-                    player.hp = Math.max(0, player.hp - 1);
-                    stats.playerGotHit();
+                    enemies.kill(e);
+                    events.publish(GameEventBus.HIT_ENEMY, 15);
+                    return false;
                 }
             }
+        } else {
+            float dx = player.x - nx, dy = player.y - ny;
+            float rr = player.r + GameConfig.BULLET_RADIUS;
+            if (dx*dx + dy*dy <= rr*rr) {
+                player.hp = Math.max(0, player.hp - 1);
+                events.publish(GameEventBus.PLAYER_HIT, world.toTileY(player.y) * world.w + world.toTileX(player.x));
+                return false;
+            }
         }
+        return true;
     }
-}
\ No newline at end of file
+}
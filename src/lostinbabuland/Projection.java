@@ -1,36 +1,89 @@
-
 package lostinbabuland;
 
+// both views are plain affine maps (rotate + iso squash), so each one is 6 floats and projecting allocates nothing
+
 public final class Projection {
     private Projection(){}
 
     public static Camera.Projector top(World world) {
-        return (wx, wy) -> new float[]{ wx, wy };
+        return new Affine(1f, 0f, 0f, 1f, 0f, 0f);
     }
 
     //pew pew
     public static Camera.Projector sideIso(World world, int rotDeg) {
-        float cx = (world.w * GameConfig.TILE) * 0.5f;
-        float cy = (world.h * GameConfig.TILE) * 0.5f;
+        return sideAffine(world.w, world.h, rotDeg);
+    }
+
+    private static Affine sideAffine(int worldW, int worldH, int rotDeg) {
+        float cx = (worldW * GameConfig.TILE) * 0.5f;
+        float cy = (worldH * GameConfig.TILE) * 0.5f;
 
         double a = Math.toRadians(rotDeg);
         float ca = (float)Math.cos(a);
         float sa = (float)Math.sin(a);
 
-        return (wx, wy) -> {
-            float x = wx - cx;
-            float y = wy - cy;
+        // rotate on plane around the map centre:  rx = x*ca - y*sa,  ry = x*sa + y*ca
+        // isometric:                              isoX = (rx - ry)*0.85,  isoY = (rx + ry)*0.42
+        // folded into one matrix; output is around 0,0 and the Camera fits+centres it
+        float m00 = (ca - sa) * 0.85f, m01 = (-sa - ca) * 0.85f;
+        float m10 = (ca + sa) * 0.42f, m11 = (ca - sa) * 0.42f;
+        return new Affine(m00, m01, m10, m11, -(m00*cx + m01*cy), -(m10*cx + m11*cy));
+    }
+
+    public static final class Affine implements Camera.Projector {
+        final float m00, m01, m10, m11, tx, ty;
+
+        Affine(float m00, float m01, float m10, float m11, float tx, float ty) {
+            this.m00 = m00; this.m01 = m01;
+            this.m10 = m10; this.m11 = m11;
+            this.tx = tx; this.ty = ty;
+        }
+
+        @Override public float projectX(float wx, float wy) { return m00*wx + m01*wy + tx; }
+        @Override public float projectY(float wx, float wy) { return m10*wx + m11*wy + ty; }
+
+        @Override public void projectBatch(float[] xy, float[] out, int count) {
+            for (int i = 0, n = count*2; i < n; i += 2) {
+                float wx = xy[i], wy = xy[i+1];
+                out[i]   = m00*wx + m01*wy + tx;
+                out[i+1] = m10*wx + m11*wy + ty;
+            }
+        }
+
+        // screen -> world, for the follow camera's visible range
+        public float unprojectX(float px, float py) {
+            float det = m00*m11 - m01*m10;
+            return ( m11*(px - tx) - m01*(py - ty)) / det;
+        }
+
+        public float unprojectY(float px, float py) {
+            float det = m00*m11 - m01*m10;
+            return (-m10*(px - tx) + m00*(py - ty)) / det;
+        }
+    }
+
+    // there are only 360/ROT_STEP_DEG side rotations, build them all once per world size
+    public static final class Table {
+        private final int worldW, worldH;
+        private final Affine top;
+        private final Affine[] side;
 
-            // rotate on plane
-            float rx = x * ca - y * sa;
-            float ry = x * sa + y * ca;
+        public Table(World world) {
+            this.worldW = world.w;
+            this.worldH = world.h;
+            this.top = new Affine(1f, 0f, 0f, 1f, 0f, 0f);
+            this.side = new Affine[360 / GameConfig.ROT_STEP_DEG];
+            for (int i = 0; i < side.length; i++) side[i] = sideAffine(worldW, worldH, i * GameConfig.ROT_STEP_DEG);
+        }
 
-            // isometric projection
-            float isoX = (rx - ry) * 0.85f;
-            float isoY = (rx + ry) * 0.42f;
+        public boolean fits(World world) {
+            return world.w == worldW && world.h == worldH;
+        }
 
-            // return around 0,0 space; Camera will fit+center
-            return new float[]{ isoX, isoY };
-        };
+        public Affine get(ViewMode view, int rotDeg) {
+            if (view == ViewMode.TOP) return top;
+            if (rotDeg % GameConfig.ROT_STEP_DEG == 0) return side[MathUtil.wrapDeg(rotDeg) / GameConfig.ROT_STEP_DEG];
+            return sideAffine(worldW, worldH, rotDeg);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,126 @@
+package lostinbabuland;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Paint;
+
+import java.util.Arrays;
+
+// collects one frame's draw commands, then issues them sorted by (layer, kind, material) so each fill/stroke
+// is set once per run instead of once per shape. submission order is kept inside a run, so overlap within
+// a layer looks the same as before. commands are primitive arrays, nothing is allocated once they've grown
+
+public final class RenderQueue {
+    // back to front
+    public static final int L_BACKGROUND = 0;
+    public static final int L_GRID = 1;
+    public static final int L_WALLS = 2;
+    public static final int L_FLOOR = 3;
+    public static final int L_PICKUPS = 4;
+    public static final int L_EXIT = 5;
+    public static final int L_ENEMIES = 6;
+    public static final int L_BULLETS = 7;
+    public static final int L_PLAYER = 8;
+
+    private static final int FILL_RECT = 0;
+    private static final int STROKE_LINE = 1;
+    private static final int SPRITE = 2;
+
+    private int count = 0;
+    private long[] keys = new long[256];
+    private byte[] kind = new byte[256];
+    private int[] material = new int[256]; // paint id, or sprite id for SPRITE
+    private double[] ax = new double[256], ay = new double[256], bx = new double[256], by = new double[256];
+
+    // per frame, reset by beginFrame()
+    private int drawCalls, stateChanges, naiveDrawCalls, naiveStateChanges;
+    private int lastNaivePaint = -1;
+
+    public int drawCalls() { return drawCalls; }
+    public int stateChanges() { return stateChanges; }
+    public int naiveDrawCalls() { return naiveDrawCalls; }
+    public int naiveStateChanges() { return naiveStateChanges; }
+
+    public void beginFrame() {
+        drawCalls = stateChanges = naiveDrawCalls = naiveStateChanges = 0;
+        lastNaivePaint = -1;
+        count = 0;
+    }
+
+    public void fillRect(int layer, int paint, double x, double y, double w, double h) {
+        add(layer, FILL_RECT, paint, x, y, w, h);
+        naive(paint, 1, 1);
+    }
+
+    public void strokeLine(int layer, int paint, double x1, double y1, double x2, double y2) {
+        // strokes get their own id range so a stroke never counts as "same paint" as a fill
+        add(layer, STROKE_LINE, paint, x1, y1, x2, y2);
+        naive(Palette.PAINTS.length + paint, 1, 1);
+    }
+
+    // (sx, sy) is the sprite's anchor on screen, scale is screen pixels per world pixel
+    public void sprite(int layer, int sprite, double sx, double sy, double scale) {
+        add(layer, SPRITE, sprite,
+                sx + SpriteAtlas.boxX[sprite]*scale, sy + SpriteAtlas.boxY[sprite]*scale,
+                SpriteAtlas.boxW[sprite]*scale, SpriteAtlas.boxH[sprite]*scale);
+        naive(-2 - sprite, SpriteAtlas.naivePaints[sprite], SpriteAtlas.naiveDraws[sprite]);
+    }
+
+    // what the old per-shape path would have cost, in submission order. generous to it: repeats of one paint are free
+    private void naive(int paint, int paints, int draws) {
+        naiveDrawCalls += draws;
+        if (paints > 1 || paint != lastNaivePaint) naiveStateChanges += paints;
+        lastNaivePaint = paint;
+    }
+
+    private void add(int layer, int k, int mat, double a, double b, double c, double d) {
+        if (count == kind.length) grow(count * 2);
+        int i = count++;
+        kind[i] = (byte)k;
+        material[i] = mat;
+        ax[i] = a; ay[i] = b; bx[i] = c; by[i] = d;
+        keys[i] = ((long)layer << 56) | ((long)k << 52) | ((long)mat << 36) | i;
+    }
+
+    public void flush(GraphicsContext g, SpriteAtlas atlas) {
+        if (count == 0) return;
+        Arrays.sort(keys, 0, count);
+
+        Paint fill = null, stroke = null;
+        for (int n = 0; n < count; n++) {
+            int i = (int)(keys[n] & 0xFFFFFFFFFL);
+            switch (kind[i]) {
+                case FILL_RECT: {
+                    Paint p = Palette.PAINTS[material[i]];
+                    if (p != fill) { g.setFill(p); fill = p; stateChanges++; }
+                    g.fillRect(ax[i], ay[i], bx[i], by[i]);
+                    break;
+                }
+                case STROKE_LINE: {
+                    Paint p = Palette.PAINTS[material[i]];
+                    if (p != stroke) { g.setStroke(p); stroke = p; stateChanges++; }
+                    g.strokeLine(ax[i], ay[i], bx[i], by[i]);
+                    break;
+                }
+                default: {
+                    int s = material[i];
+                    g.drawImage(atlas.image(),
+                            SpriteAtlas.srcX[s], SpriteAtlas.srcY[s], SpriteAtlas.srcW[s], SpriteAtlas.srcH[s],
+                            ax[i], ay[i], bx[i], by[i]);
+                    break;
+                }
+            }
+            drawCalls++;
+        }
+        count = 0;
+    }
+
+    private void grow(int n) {
+        keys = Arrays.copyOf(keys, n);
+        kind = Arrays.copyOf(kind, n);
+        material = Arrays.copyOf(material, n);
+        ax = Arrays.copyOf(ax, n);
+        ay = Arrays.copyOf(ay, n);
+        bx = Arrays.copyOf(bx, n);
+        by = Arrays.copyOf(by, n);
+    }
+}
@@ -0,0 +1,72 @@
+package lostinbabuland;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+// re-runs a recorded session as fast as the CPU goes and checks the state hashes on the way
+// usage: ReplayRunner <replay.bin>
+
+public final class ReplayRunner {
+    private ReplayRunner(){}
+
+    public static final class Result {
+        public final long ticks;
+        public final long nanos;
+        public final long firstDesyncTick; // -1 when every hash matched
+        public final int hashesChecked;
+
+        Result(long ticks, long nanos, long firstDesyncTick, int hashesChecked) {
+            this.ticks = ticks; this.nanos = nanos;
+            this.firstDesyncTick = firstDesyncTick; this.hashesChecked = hashesChecked;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: ReplayRunner <replay.bin>");
+            return;
+        }
+        Result r = replay(Paths.get(args[0]));
+        double sec = r.nanos / 1e9;
+        System.out.printf(Locale.US, "ticks=%d time=%.3fs ticks/sec=%.0f hashes=%d %s%n",
+                r.ticks, sec, r.ticks / Math.max(1e-9, sec), r.hashesChecked,
+                r.firstDesyncTick < 0 ? "OK" : ("DESYNC at tick " + r.firstDesyncTick));
+    }
+
+    public static Result replay(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != InputRecorder.MAGIC) throw new IOException("not a replay file: " + file);
+            short version = in.readShort();
+            if (version != InputRecorder.VERSION) throw new IOException("unsupported replay version " + version);
+            long seed = in.readLong();
+            int hashInterval = in.readInt();
+
+            GameSimulation sim = new GameSimulation(seed);
+            SimInput input = new SimInput();
+            long desync = -1;
+            int checked = 0;
+
+            long t0 = System.nanoTime();
+            while (true) {
+                int bits = in.read();
+                if (bits < 0) break;
+                input.fromBits(bits);
+                sim.tick(input, GameConfig.FIXED_DT);
+
+                if (sim.ticks() % hashInterval == 0) {
+                    long expected;
+                    try { expected = in.readLong(); } catch (EOFException e) { break; }
+                    checked++;
+                    if (desync < 0 && expected != sim.stateHash()) desync = sim.ticks();
+                }
+            }
+            return new Result(sim.ticks(), System.nanoTime() - t0, desync, checked);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package lostinbabuland;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+// offline aggregates over session logs: binary (SessionLogWriter) or the old/exported CSV
+// files are mmapped in chunks and each chunk is folded into a primitive Aggregate on its own core,
+// binary rows are read at fixed offsets and CSV fields are parsed straight from the mapped bytes,
+// so no per-row objects or Strings. rows are grouped by which view the session mostly spent its time in
+// usage: SessionAnalyzer <sessions.bin|sessions.csv> ...
+
+public final class SessionAnalyzer {
+    private SessionAnalyzer(){}
+
+    public static final int TOP = 0, SIDE = 1, MIXED = 2;
+    static final String[] GROUPS = { "TOP", "SIDE", "MIXED" };
+    private static final double DOMINANT = 0.6; // share of view time that makes a session TOP or SIDE
+
+    private static final int BIN_CHUNK_RECORDS = 1 << 16;  // ~10MB per task
+    private static final long CSV_CHUNK_BYTES = 16L << 20;
+    private static final long CSV_OVERLAP = 64L << 10;     // a line that starts in a chunk always ends inside this
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: SessionAnalyzer <sessions.bin|sessions.csv> ...");
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        for (String a : args) files.add(Paths.get(a));
+
+        long t0 = System.nanoTime();
+        Aggregate total = analyze(files);
+        double sec = (System.nanoTime() - t0) / 1e9;
+
+        System.out.print(total.report());
+        System.out.printf(Locale.US, "%d rows in %.2fs (%.0f rows/s)%n", total.rows(), sec, total.rows() / Math.max(1e-9, sec));
+    }
+
+    public static Aggregate analyze(List<Path> files) throws IOException {
+        Aggregate total = new Aggregate();
+        for (Path f : files) total.merge(f.toString().endsWith(".csv") ? analyzeCsv(f) : analyzeBinary(f));
+        return total;
+    }
+
+    public static Aggregate analyzeBinary(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size == 0) return new Aggregate(); // empty log, the writer hasn't got its header down yet
+            ByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, SessionRecord.HEADER_SIZE));
+            SessionRecord.checkHeader(header, file);
+
+            long records = (size - SessionRecord.HEADER_SIZE) / SessionRecord.SIZE; // a torn tail is ignored
+            int chunks = (int)((records + BIN_CHUNK_RECORDS - 1) / BIN_CHUNK_RECORDS);
+
+            return IntStream.range(0, chunks).parallel()
+                    .mapToObj(c -> {
+                        long first = (long)c * BIN_CHUNK_RECORDS;
+                        int n = (int)Math.min(BIN_CHUNK_RECORDS, records - first);
+                        Aggregate agg = new Aggregate();
+                        MappedByteBuffer b = map(ch, SessionRecord.HEADER_SIZE + first * SessionRecord.SIZE, (long)n * SessionRecord.SIZE);
+                        for (int i = 0, at = 0; i < n; i++, at += SessionRecord.SIZE) {
+                            agg.add((b.getInt(at + SessionRecord.OFF_FLAGS) & SessionRecord.FLAG_WON) != 0,
+                                    b.getDouble(at + SessionRecord.OFF_TOP_SEC),
+                                    b.getDouble(at + SessionRecord.OFF_SIDE_SEC),
+                                    b.getInt(at + SessionRecord.OFF_PLAYER_SHOTS),
+                                    b.getInt(at + SessionRecord.OFF_PLAYER_HITS),
+                                    b.getDouble(at + SessionRecord.OFF_APM),
+                                    b.getDouble(at + SessionRecord.OFF_IDLE_SEC),
+                                    b.getDouble(at + SessionRecord.OFF_ELAPSED),
+                                    b.getDouble(at + SessionRecord.OFF_EXPLORE_PCT),
+                                    b.getDouble(at + SessionRecord.OFF_AVG_REACTION));
+                        }
+                        return agg;
+                    })
+                    .reduce(Aggregate::merge).orElseGet(Aggregate::new); // no shared identity, merge mutates
+        }
+    }
+
+    // columns of the AnalyticsManager CSV (SessionLogCsv adds two more at the end, ignored here)
+    private static final int C_WON = 1, C_ELAPSED = 2, C_TOP = 5, C_SIDE = 6, C_PSHOTS = 9, C_PHITS = 10,
+            C_APM = 18, C_IDLE = 20, C_EXPLORE = 21, C_REACTION = 22, C_LAST = 22;
+
+    public static Aggregate analyzeCsv(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            int chunks = (int)((size + CSV_CHUNK_BYTES - 1) / CSV_CHUNK_BYTES);
+
+            return IntStream.range(0, chunks).parallel()
+                    .mapToObj(c -> {
+                        long start = c * CSV_CHUNK_BYTES;
+                        long end = Math.min(size, start + CSV_CHUNK_BYTES);
+                        // start one byte early so we can see whether a line begins exactly at `start`
+                        long mapStart = start > 0 ? start - 1 : 0;
+                        long mapEnd = Math.min(size, end + CSV_OVERLAP);
+                        MappedByteBuffer b = map(ch, mapStart, mapEnd - mapStart);
+                        Aggregate agg = new Aggregate();
+                        parseCsvChunk(b, start > 0, (int)(end - mapStart), agg);
+                        return agg;
+                    })
+                    .reduce(Aggregate::merge).orElseGet(Aggregate::new); // no shared identity, merge mutates
+        }
+    }
+
+    // handles every line that starts before `end`. when midLine, byte 0 is the last byte of the previous chunk
+    // and we start after the first '\n' from there; anything before that is the previous chunk's line
+    static void parseCsvChunk(ByteBuffer b, boolean midLine, int end, Aggregate agg) {
+        int limit = b.limit();
+        int p = 0;
+        if (midLine) p = skipLine(b, 0, limit);
+
+        double[] f = new double[C_LAST + 1];
+        while (p < end && p < limit) {
+            byte first = b.get(p);
+            if (first < '0' || first > '9') { p = skipLine(b, p, limit); continue; } // header or junk
+
+            int col = 0;
+            boolean won = false;
+            while (p < limit && col <= C_LAST) {
+                byte c = b.get(p);
+                if (c == 't' || c == 'f') { // won column
+                    won = c == 't';
+                    while (p < limit && b.get(p) != ',' && b.get(p) != '\n') p++;
+                } else if (c == ',' || c == '\n' || c == '\r') {
+                    f[col] = -1; // empty field (no reaction time)
+                } else {
+                    // inline number parse: [-]digits[.digits]
+                    boolean neg = false;
+                    if (c == '-') { neg = true; p++; }
+                    long whole = 0;
+                    while (p < limit && (c = b.get(p)) >= '0' && c <= '9') { whole = whole*10 + (c - '0'); p++; }
+                    double v = whole;
+                    if (p < limit && b.get(p) == '.') {
+                        p++;
+                        long frac = 0, scale = 1;
+                        while (p < limit && (c = b.get(p)) >= '0' && c <= '9') { frac = frac*10 + (c - '0'); scale *= 10; p++; }
+                        v += (double)frac / scale;
+                    }
+                    f[col] = neg ? -v : v;
+                }
+                if (p < limit && b.get(p) == ',') { p++; col++; }
+                else break;
+            }
+            p = skipLine(b, p, limit);
+            if (col < C_LAST) continue; // short line
+
+            agg.add(won, f[C_TOP], f[C_SIDE], (int)f[C_PSHOTS], (int)f[C_PHITS], f[C_APM], f[C_IDLE], f[C_ELAPSED], f[C_EXPLORE], f[C_REACTION]);
+        }
+    }
+
+    private static int skipLine(ByteBuffer b, int p, int limit) {
+        while (p < limit && b.get(p) != '\n') p++;
+        return p + 1;
+    }
+
+    private static MappedByteBuffer map(FileChannel ch, long pos, long len) {
+        try {
+            return ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // everything is counts and fixed-bucket histograms so merging chunks is just adding arrays
+    public static final class Aggregate {
+        static final int SKILL_BUCKETS = 101;   // 0..100
+        static final int APM_BUCKETS = 121;     // 0..600 by 5, last one is 600+
+        static final int REACT_BUCKETS = 101;   // 0..5s by 50ms, last one is 5s+
+
+        final long[] rows = new long[3];
+        final long[] wins = new long[3];
+        final double[] skillSum = new double[3], apmSum = new double[3], exploreSum = new double[3], accSum = new double[3];
+        final double[] reactSum = new double[3];
+        final long[] reactN = new long[3];
+        final long[][] skillHist = new long[3][SKILL_BUCKETS];
+        final long[][] apmHist = new long[3][APM_BUCKETS];
+        final long[][] reactHist = new long[3][REACT_BUCKETS];
+
+        public long rows() { return rows[TOP] + rows[SIDE] + rows[MIXED]; }
+        public long rows(int group) { return rows[group]; }
+
+        void add(boolean won, double topSec, double sideSec, int pShots, int pHits, double apm,
+                 double idleSec, double elapsed, double explorePct, double reaction) {
+            double viewT = topSec + sideSec;
+            int g = viewT <= 0 ? MIXED : topSec / viewT >= DOMINANT ? TOP : sideSec / viewT >= DOMINANT ? SIDE : MIXED;
+
+            double acc = pShots > 0 ? pHits * 100.0 / pShots : 0;
+            double idlePct = elapsed > 1e-6 ? idleSec * 100.0 / elapsed : 0;
+            double skill = AnalyticsManager.skill(acc, explorePct, apm, idlePct);
+
+            rows[g]++;
+            if (won) wins[g]++;
+            skillSum[g] += skill;
+            apmSum[g] += apm;
+            exploreSum[g] += explorePct;
+            accSum[g] += acc;
+            skillHist[g][clamp((int)Math.round(skill), SKILL_BUCKETS)]++;
+            apmHist[g][clamp((int)(apm / 5), APM_BUCKETS)]++;
+            if (reaction >= 0) {
+                reactSum[g] += reaction;
+                reactN[g]++;
+                reactHist[g][clamp((int)(reaction / 0.05), REACT_BUCKETS)]++;
+            }
+        }
+
+        Aggregate merge(Aggregate o) {
+            for (int g = 0; g < 3; g++) {
+                rows[g] += o.rows[g];
+                wins[g] += o.wins[g];
+                skillSum[g] += o.skillSum[g];
+                apmSum[g] += o.apmSum[g];
+                exploreSum[g] += o.exploreSum[g];
+                accSum[g] += o.accSum[g];
+                reactSum[g] += o.reactSum[g];
+                reactN[g] += o.reactN[g];
+                for (int i = 0; i < SKILL_BUCKETS; i++) skillHist[g][i] += o.skillHist[g][i];
+                for (int i = 0; i < APM_BUCKETS; i++) apmHist[g][i] += o.apmHist[g][i];
+                for (int i = 0; i < REACT_BUCKETS; i++) reactHist[g][i] += o.reactHist[g][i];
+            }
+            return this;
+        }
+
+        // bucket index holding the q-th row, nearest rank
+        static int percentile(long[] hist, double q) {
+            long n = 0;
+            for (long c : hist) n += c;
+            if (n == 0) return 0;
+            long rank = Math.max(1, (long)Math.ceil(q * n));
+            long seen = 0;
+            for (int i = 0; i < hist.length; i++) {
+                seen += hist[i];
+                if (seen >= rank) return i;
+            }
+            return hist.length - 1;
+        }
+
+        public String report() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.US, "%-6s %9s %6s %6s %6s %6s %6s %8s %8s %8s %7s %7s%n",
+                    "group", "sessions", "win%", "acc%", "expl%", "skill", "p50", "p90", "p99", "apm p50", "rt avg", "rt p90"));
+            for (int g = 0; g < 3; g++) {
+                long n = Math.max(1, rows[g]);
+                sb.append(String.format(Locale.US, "%-6s %9d %6.1f %6.1f %6.1f %6.1f %6d %8d %8d %8d %7s %7s%n",
+                        GROUPS[g], rows[g], wins[g] * 100.0 / n, accSum[g] / n, exploreSum[g] / n, skillSum[g] / n,
+                        percentile(skillHist[g], 0.5), percentile(skillHist[g], 0.9), percentile(skillHist[g], 0.99),
+                        percentile(apmHist[g], 0.5) * 5,
+                        reactN[g] == 0 ? "-" : String.format(Locale.US, "%.2fs", reactSum[g] / reactN[g]),
+                        reactN[g] == 0 ? "-" : String.format(Locale.US, "%.2fs", percentile(reactHist[g], 0.9) * 0.05)));
+            }
+            // skill histogram per group in 10-point bars
+            for (int g = 0; g < 3; g++) {
+                if (rows[g] == 0) continue;
+                sb.append(GROUPS[g]).append(" skill\n");
+                long max = 1;
+                long[] bars = new long[10];
+                for (int i = 0; i < SKILL_BUCKETS; i++) bars[Math.min(9, i / 10)] += skillHist[g][i];
+                for (long v : bars) max = Math.max(max, v);
+                for (int i = 0; i < 10; i++) {
+                    sb.append(String.format(Locale.US, "  %3d-%-3d %9d ", i*10, i == 9 ? 100 : i*10 + 9, bars[i]));
+                    for (int k = 0, w = (int)(bars[i] * 50 / max); k < w; k++) sb.append('#');
+                    sb.append('\n');
+                }
+            }
+            return sb.toString();
+        }
+
+        private static int clamp(int i, int n) {
+            return i < 0 ? 0 : (i >= n ? n - 1 : i);
+        }
+    }
+}
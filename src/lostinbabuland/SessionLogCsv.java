@@ -0,0 +1,66 @@
+package lostinbabuland;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+// binary session log -> the CSV AnalyticsManager used to write (same header, same number formats,
+// the two hitch columns added at the end)
+// usage: SessionLogCsv <sessions.bin> <sessions.csv>
+
+public final class SessionLogCsv {
+    private SessionLogCsv(){}
+
+    static final String HEADER = "timestamp,won,elapsed_sec,fps_avg,mem_peak_mb,view_top_sec,view_side_sec,switches,rotations," +
+            "player_shots,player_hits,enemy_shots,enemy_hits,candies,gems,bumps,distance,actions,apm,threat_sec,idle_sec,explore_pct,avg_reaction_sec," +
+            "hitches,worst_hitch_ms\n";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: SessionLogCsv <sessions.bin> <sessions.csv>");
+            return;
+        }
+        int n = export(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.println(n + " sessions");
+    }
+
+    public static int export(Path log, Path csv) throws IOException {
+        try (FileChannel ch = FileChannel.open(log, StandardOpenOption.READ);
+             BufferedWriter out = Files.newBufferedWriter(csv)) {
+            out.write(HEADER);
+            if (ch.size() == 0) return 0; // created by a writer that hasn't got its header down yet: empty log
+
+            ByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            SessionRecord.checkHeader(b, log);
+
+            SessionRecord r = new SessionRecord();
+            int n = 0;
+            // a torn last record (crash mid-write) is ignored
+            for (int at = SessionRecord.HEADER_SIZE; at + SessionRecord.SIZE <= b.limit(); at += SessionRecord.SIZE) {
+                r.read(b, at);
+                out.write(row(r));
+                n++;
+            }
+            return n;
+        }
+    }
+
+    static String row(SessionRecord r) {
+        return String.format(Locale.US,
+                "%d,%s,%.3f,%.3f,%.3f,%.3f,%.3f,%d,%d,%d,%d,%d,%d,%d,%d,%d,%.3f,%d,%.3f,%.3f,%.3f,%.2f,%s,%d,%.1f\n",
+                r.timestamp, r.won ? "true" : "false",
+                r.elapsedSec, r.fps, r.memPeakMB, r.topSec, r.sideSec,
+                r.switches, r.rotations,
+                r.playerShots, r.playerHits, r.enemyShots, r.enemyHits,
+                r.candies, r.gems, r.bumps,
+                r.distance, r.actions, r.apm, r.threatSec, r.idleSec, r.explorePct,
+                (r.avgReactionSec < 0 ? "" : String.format(Locale.US, "%.3f", r.avgReactionSec)),
+                r.hitches, r.worstHitchMs);
+    }
+}
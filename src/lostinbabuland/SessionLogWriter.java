@@ -0,0 +1,136 @@
+package lostinbabuland;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// append-only session log. append() just encodes 152 bytes and queues them; a daemon thread collects
+// whatever's queued (up to FLUSH_MS later), takes an exclusive lock on the file so other game processes
+// sharing it can't interleave, and writes the whole batch in one gathering write
+// one writer per file per process (FileLock is per JVM). SessionLogCsv turns a log back into the old CSV
+
+public final class SessionLogWriter implements Closeable {
+    private static final long FLUSH_MS = 250;
+    private static final int QUEUE = 1024;
+    private static final ByteBuffer POISON = ByteBuffer.allocate(0);
+
+    private final Path file;
+    private final FileChannel channel;
+    private final BlockingQueue<ByteBuffer> queue = new ArrayBlockingQueue<>(QUEUE);
+    private final Thread thread;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile IOException lastError;
+
+    public SessionLogWriter(Path file) throws IOException {
+        this.file = file;
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        // header straight away, so a log with no runs in it yet still reads as a valid empty log
+        try {
+            FileLock lock = channel.lock();
+            try {
+                writeHeaderIfEmpty();
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.thread = new Thread(this::run, "session-log");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public Path file() { return file; }
+    public long written() { return written.get(); }
+    public long dropped() { return dropped.get(); }
+    public long failures() { return failures.get(); }
+    public IOException lastError() { return lastError; }
+
+    // never blocks; if the writer is that far behind (or closed) the record is counted as dropped
+    public void append(SessionRecord r) {
+        ByteBuffer b = ByteBuffer.allocate(SessionRecord.SIZE);
+        r.write(b, 0);
+        if (!queue.offer(b)) dropped.incrementAndGet();
+    }
+
+    // flushes everything queued so far, then closes the file
+    @Override
+    public void close() throws IOException {
+        try {
+            queue.put(POISON);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (lastError != null) throw lastError;
+    }
+
+    private void run() {
+        List<ByteBuffer> batch = new ArrayList<>();
+        boolean closing = false;
+        while (!closing) {
+            try {
+                ByteBuffer first = queue.take();
+                if (first == POISON) closing = true;
+                else batch.add(first);
+                // let a burst of game-overs pile up a little so they share one lock + write
+                if (!closing) Thread.sleep(FLUSH_MS);
+            } catch (InterruptedException e) {
+                closing = true;
+            }
+            ByteBuffer b;
+            while ((b = queue.poll()) != null) {
+                if (b == POISON) closing = true;
+                else batch.add(b);
+            }
+            if (!batch.isEmpty()) flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<ByteBuffer> batch) {
+        try {
+            FileLock lock = channel.lock();
+            try {
+                writeHeaderIfEmpty(); // someone may have truncated it since we opened it
+                ByteBuffer[] bufs = batch.toArray(new ByteBuffer[0]);
+                long left = (long)bufs.length * SessionRecord.SIZE;
+                while (left > 0) left -= channel.write(bufs);
+                channel.force(false);
+                written.addAndGet(bufs.length);
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            failures.addAndGet(batch.size());
+            lastError = e;
+        }
+    }
+
+    // caller holds the file lock
+    private void writeHeaderIfEmpty() throws IOException {
+        if (channel.size() != 0) return;
+        ByteBuffer header = ByteBuffer.allocate(SessionRecord.HEADER_SIZE);
+        SessionRecord.writeHeader(header);
+        header.flip();
+        while (header.hasRemaining()) channel.write(header);
+    }
+}
@@ -0,0 +1,122 @@
+package lostinbabuland;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// one finished session, the same columns the old analytics CSV had plus the hitch counters
+// fixed 152-byte big-endian layout so a log can be mmapped and read at fixed offsets with no parsing
+
+public final class SessionRecord {
+    public static final int MAGIC = 0x42534c31; // "BSL1"
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 8;    // magic, version, record size
+    public static final int SIZE = 152;
+
+    // byte offsets inside a record
+    public static final int OFF_TIMESTAMP = 0;
+    public static final int OFF_FLAGS = 8;
+    public static final int OFF_ELAPSED = 12;
+    public static final int OFF_FPS = 20;
+    public static final int OFF_MEM_PEAK = 28;
+    public static final int OFF_TOP_SEC = 36;
+    public static final int OFF_SIDE_SEC = 44;
+    public static final int OFF_DISTANCE = 52;
+    public static final int OFF_APM = 60;
+    public static final int OFF_THREAT_SEC = 68;
+    public static final int OFF_IDLE_SEC = 76;
+    public static final int OFF_EXPLORE_PCT = 84;
+    public static final int OFF_AVG_REACTION = 92;
+    public static final int OFF_SWITCHES = 100;
+    public static final int OFF_ROTATIONS = 104;
+    public static final int OFF_PLAYER_SHOTS = 108;
+    public static final int OFF_PLAYER_HITS = 112;
+    public static final int OFF_ENEMY_SHOTS = 116;
+    public static final int OFF_ENEMY_HITS = 120;
+    public static final int OFF_CANDIES = 124;
+    public static final int OFF_GEMS = 128;
+    public static final int OFF_BUMPS = 132;
+    public static final int OFF_ACTIONS = 136;
+    public static final int OFF_HITCHES = 140;
+    public static final int OFF_WORST_HITCH_MS = 144;
+    // 148..151 reserved
+
+    public static final int FLAG_WON = 1;
+
+    public long timestamp;
+    public boolean won;
+    public double elapsedSec, fps, memPeakMB, topSec, sideSec, distance, apm, threatSec, idleSec, explorePct;
+    public double avgReactionSec = -1; // -1 = no reactions measured
+    public int switches, rotations, playerShots, playerHits, enemyShots, enemyHits, candies, gems, bumps, actions;
+    public int hitches;
+    public float worstHitchMs;
+
+    public void write(ByteBuffer b, int at) {
+        b.putLong(at + OFF_TIMESTAMP, timestamp);
+        b.putInt(at + OFF_FLAGS, won ? FLAG_WON : 0);
+        b.putDouble(at + OFF_ELAPSED, elapsedSec);
+        b.putDouble(at + OFF_FPS, fps);
+        b.putDouble(at + OFF_MEM_PEAK, memPeakMB);
+        b.putDouble(at + OFF_TOP_SEC, topSec);
+        b.putDouble(at + OFF_SIDE_SEC, sideSec);
+        b.putDouble(at + OFF_DISTANCE, distance);
+        b.putDouble(at + OFF_APM, apm);
+        b.putDouble(at + OFF_THREAT_SEC, threatSec);
+        b.putDouble(at + OFF_IDLE_SEC, idleSec);
+        b.putDouble(at + OFF_EXPLORE_PCT, explorePct);
+        b.putDouble(at + OFF_AVG_REACTION, avgReactionSec);
+        b.putInt(at + OFF_SWITCHES, switches);
+        b.putInt(at + OFF_ROTATIONS, rotations);
+        b.putInt(at + OFF_PLAYER_SHOTS, playerShots);
+        b.putInt(at + OFF_PLAYER_HITS, playerHits);
+        b.putInt(at + OFF_ENEMY_SHOTS, enemyShots);
+        b.putInt(at + OFF_ENEMY_HITS, enemyHits);
+        b.putInt(at + OFF_CANDIES, candies);
+        b.putInt(at + OFF_GEMS, gems);
+        b.putInt(at + OFF_BUMPS, bumps);
+        b.putInt(at + OFF_ACTIONS, actions);
+        b.putInt(at + OFF_HITCHES, hitches);
+        b.putFloat(at + OFF_WORST_HITCH_MS, worstHitchMs);
+        b.putInt(at + 148, 0);
+    }
+
+    public void read(ByteBuffer b, int at) {
+        timestamp = b.getLong(at + OFF_TIMESTAMP);
+        won = (b.getInt(at + OFF_FLAGS) & FLAG_WON) != 0;
+        elapsedSec = b.getDouble(at + OFF_ELAPSED);
+        fps = b.getDouble(at + OFF_FPS);
+        memPeakMB = b.getDouble(at + OFF_MEM_PEAK);
+        topSec = b.getDouble(at + OFF_TOP_SEC);
+        sideSec = b.getDouble(at + OFF_SIDE_SEC);
+        distance = b.getDouble(at + OFF_DISTANCE);
+        apm = b.getDouble(at + OFF_APM);
+        threatSec = b.getDouble(at + OFF_THREAT_SEC);
+        idleSec = b.getDouble(at + OFF_IDLE_SEC);
+        explorePct = b.getDouble(at + OFF_EXPLORE_PCT);
+        avgReactionSec = b.getDouble(at + OFF_AVG_REACTION);
+        switches = b.getInt(at + OFF_SWITCHES);
+        rotations = b.getInt(at + OFF_ROTATIONS);
+        playerShots = b.getInt(at + OFF_PLAYER_SHOTS);
+        playerHits = b.getInt(at + OFF_PLAYER_HITS);
+        enemyShots = b.getInt(at + OFF_ENEMY_SHOTS);
+        enemyHits = b.getInt(at + OFF_ENEMY_HITS);
+        candies = b.getInt(at + OFF_CANDIES);
+        gems = b.getInt(at + OFF_GEMS);
+        bumps = b.getInt(at + OFF_BUMPS);
+        actions = b.getInt(at + OFF_ACTIONS);
+        hitches = b.getInt(at + OFF_HITCHES);
+        worstHitchMs = b.getFloat(at + OFF_WORST_HITCH_MS);
+    }
+
+    static void writeHeader(ByteBuffer b) {
+        b.putInt(MAGIC);
+        b.putShort(VERSION);
+        b.putShort((short)SIZE);
+    }
+
+    // throws if the first HEADER_SIZE bytes aren't a session log we can read
+    static void checkHeader(ByteBuffer b, Object source) throws IOException {
+        if (b.remaining() < HEADER_SIZE || b.getInt(0) != MAGIC) throw new IOException("not a session log: " + source);
+        if (b.getShort(4) != VERSION) throw new IOException("unsupported session log version " + b.getShort(4));
+        if (b.getShort(6) != SIZE) throw new IOException("unexpected record size " + b.getShort(6));
+    }
+}
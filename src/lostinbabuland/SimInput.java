@@ -0,0 +1,46 @@
+package lostinbabuland;
+
+// what the player did, sampled once per fixed step. held keys stay set, edges get cleared once a tick used them
+
+public final class SimInput {
+    public boolean up, down, left, right;
+
+    public boolean shootPressed;
+    public boolean rotateLeft, rotateRight;
+    public boolean restart;
+
+    // one byte per tick in replay logs
+    public static final int UP = 1, DOWN = 2, LEFT = 4, RIGHT = 8;
+    public static final int SHOOT = 16, ROT_LEFT = 32, ROT_RIGHT = 64, RESTART = 128;
+
+    public int toBits() {
+        int b = 0;
+        if (up) b |= UP;
+        if (down) b |= DOWN;
+        if (left) b |= LEFT;
+        if (right) b |= RIGHT;
+        if (shootPressed) b |= SHOOT;
+        if (rotateLeft) b |= ROT_LEFT;
+        if (rotateRight) b |= ROT_RIGHT;
+        if (restart) b |= RESTART;
+        return b;
+    }
+
+    public void fromBits(int b) {
+        up = (b & UP) != 0;
+        down = (b & DOWN) != 0;
+        left = (b & LEFT) != 0;
+        right = (b & RIGHT) != 0;
+        shootPressed = (b & SHOOT) != 0;
+        rotateLeft = (b & ROT_LEFT) != 0;
+        rotateRight = (b & ROT_RIGHT) != 0;
+        restart = (b & RESTART) != 0;
+    }
+
+    public void clearEdges() {
+        shootPressed = false;
+        rotateLeft = false;
+        rotateRight = false;
+        restart = false;
+    }
+}
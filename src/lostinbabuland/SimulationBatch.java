@@ -0,0 +1,99 @@
+package lostinbabuland;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// headless soak runner: many seeded sessions in parallel, no window, no frame cap
+// usage: SimulationBatch [sessions] [ticksPerSession] [baseSeed]
+
+public final class SimulationBatch {
+    private SimulationBatch(){}
+
+    public static final class Result {
+        public final long seed;
+        public final long ticks;
+        public final long nanos;
+        public final int score, wins, deaths;
+
+        Result(long seed, long ticks, long nanos, int score, int wins, int deaths) {
+            this.seed = seed; this.ticks = ticks; this.nanos = nanos;
+            this.score = score; this.wins = wins; this.deaths = deaths;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : cores * 4;
+        long ticks = args.length > 1 ? Long.parseLong(args[1]) : 60L * 60 * 5; // 5 sim minutes
+        long baseSeed = args.length > 2 ? Long.parseLong(args[2]) : 1L;
+
+        long t0 = System.nanoTime();
+        List<Result> results = run(sessions, ticks, baseSeed, cores);
+        double wallSec = (System.nanoTime() - t0) / 1e9;
+
+        long totalTicks = 0, totalScore = 0, wins = 0, deaths = 0;
+        for (Result r : results) {
+            totalTicks += r.ticks;
+            totalScore += r.score;
+            wins += r.wins;
+            deaths += r.deaths;
+        }
+
+        System.out.printf(Locale.US, "sessions=%d threads=%d ticks/session=%d wall=%.2fs%n", sessions, cores, ticks, wallSec);
+        System.out.printf(Locale.US, "ticks/sec=%.0f (%.1fx realtime per core)%n",
+                totalTicks / wallSec, totalTicks / wallSec / cores / 60.0);
+        System.out.printf(Locale.US, "avg score=%.1f wins=%d deaths=%d%n",
+                totalScore / (double)Math.max(1, results.size()), wins, deaths);
+    }
+
+    public static List<Result> run(int sessions, long ticks, long baseSeed, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (int i = 0; i < sessions; i++) {
+                long seed = baseSeed + i;
+                futures.add(pool.submit(() -> runSession(seed, ticks)));
+            }
+            List<Result> out = new ArrayList<>();
+            for (Future<Result> f : futures) out.add(f.get());
+            return out;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static Result runSession(long seed, long ticks) {
+        GameSimulation sim = new GameSimulation(seed);
+        SimInput in = new SimInput();
+        Random bot = new Random(seed ^ 0x5DEECE66DL);
+
+        long t0 = System.nanoTime();
+        for (long t = 0; t < ticks; t++) {
+            drive(bot, t, in);
+            sim.tick(in, GameConfig.FIXED_DT);
+        }
+        long nanos = System.nanoTime() - t0;
+        return new Result(seed, ticks, nanos, sim.stats().score(), sim.wins(), sim.deaths());
+    }
+
+    // dumb but deterministic player: new heading every half second, taps fire now and then
+    private static void drive(Random bot, long tick, SimInput in) {
+        if (tick % 30 == 0) {
+            int dir = bot.nextInt(9);
+            in.left = dir == 0 || dir == 3 || dir == 5;
+            in.right = dir == 2 || dir == 4 || dir == 7;
+            in.up = dir == 0 || dir == 1 || dir == 2;
+            in.down = dir == 5 || dir == 6 || dir == 7;
+        }
+        if (tick % 10 == 0 && bot.nextInt(3) == 0) in.shootPressed = true;
+        if (tick % 240 == 0 && bot.nextInt(4) == 0) {
+            if (bot.nextBoolean()) in.rotateLeft = true;
+            else in.rotateRight = true;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package lostinbabuland;
+
+import java.util.Arrays;
+
+// uniform grid buckets for point-ish things (enemies, pickups, holes). ids are whatever index the caller uses
+// rebuilt every fixed step: clear() + insert() is O(n) and cells are stamped so clearing doesn't touch the grid
+
+public final class SpatialHash {
+    private final float cellSize;
+    private int cols = 0, rows = 0;
+
+    private int[] head = new int[0];      // first id in cell, valid when cellStamp == stamp
+    private int[] cellStamp = new int[0];
+    private int stamp = 0;
+
+    private int[] next = new int[16];     // linked list through ids
+    private float[] xs = new float[16];
+    private float[] ys = new float[16];
+    private int count = 0;
+
+    public SpatialHash(float cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    public void resize(World world) {
+        int c = (int)Math.ceil(world.w * GameConfig.TILE / cellSize);
+        int r = (int)Math.ceil(world.h * GameConfig.TILE / cellSize);
+        if (c != cols || r != rows) {
+            cols = c;
+            rows = r;
+            head = new int[c*r];
+            cellStamp = new int[c*r];
+            stamp = 0;
+        }
+        clear();
+    }
+
+    public void clear() {
+        count = 0;
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(cellStamp, 0);
+            stamp = 1;
+        }
+    }
+
+    public int size() { return count; }
+
+    // ids are expected to be small and dense (0..n-1), one insert per id per rebuild
+    public void insert(int id, float x, float y) {
+        if (id >= next.length) {
+            int n = Math.max(id + 1, next.length * 2);
+            next = Arrays.copyOf(next, n);
+            xs = Arrays.copyOf(xs, n);
+            ys = Arrays.copyOf(ys, n);
+        }
+        int cell = cellOf(x, y);
+        xs[id] = x;
+        ys[id] = y;
+        if (cellStamp[cell] != stamp) {
+            cellStamp[cell] = stamp;
+            head[cell] = -1;
+        }
+        next[id] = head[cell];
+        head[cell] = id;
+        count++;
+    }
+
+    // ids whose inserted position lies within r of (x,y)
+    public void queryRadius(float x, float y, float r, IntList out) {
+        out.clear();
+        float rr = r*r;
+        int cx0 = clampCol(x - r), cx1 = clampCol(x + r);
+        int cy0 = clampRow(y - r), cy1 = clampRow(y + r);
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int cell = cy*cols + cx;
+                if (cellStamp[cell] != stamp) continue;
+                for (int id = head[cell]; id >= 0; id = next[id]) {
+                    float dx = xs[id] - x, dy = ys[id] - y;
+                    if (dx*dx + dy*dy <= rr) out.add(id);
+                }
+            }
+        }
+    }
+
+    // ids whose inserted position lies inside the box
+    public void queryAabb(float x1, float y1, float x2, float y2, IntList out) {
+        out.clear();
+        int cx0 = clampCol(x1), cx1 = clampCol(x2);
+        int cy0 = clampRow(y1), cy1 = clampRow(y2);
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int cell = cy*cols + cx;
+                if (cellStamp[cell] != stamp) continue;
+                for (int id = head[cell]; id >= 0; id = next[id]) {
+                    if (xs[id] >= x1 && xs[id] <= x2 && ys[id] >= y1 && ys[id] <= y2) out.add(id);
+                }
+            }
+        }
+    }
+
+    public boolean anyWithin(float x, float y, float r) {
+        float rr = r*r;
+        int cx0 = clampCol(x - r), cx1 = clampCol(x + r);
+        int cy0 = clampRow(y - r), cy1 = clampRow(y + r);
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int cell = cy*cols + cx;
+                if (cellStamp[cell] != stamp) continue;
+                for (int id = head[cell]; id >= 0; id = next[id]) {
+                    float dx = xs[id] - x, dy = ys[id] - y;
+                    if (dx*dx + dy*dy <= rr) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private int cellOf(float x, float y) {
+        return clampRow(y) * cols + clampCol(x);
+    }
+
+    private int clampCol(float x) {
+        int c = (int)Math.floor(x / cellSize);
+        return c < 0 ? 0 : (c >= cols ? cols - 1 : c);
+    }
+
+    private int clampRow(float y) {
+        int r = (int)Math.floor(y / cellSize);
+        return r < 0 ? 0 : (r >= rows ? rows - 1 : r);
+    }
+}
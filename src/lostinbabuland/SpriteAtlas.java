@@ -0,0 +1,153 @@
+package lostinbabuland;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+// every entity shape painted once into one image, then each draw is a single sub-rect drawImage
+// with no fill/stroke state. geometry is static so RenderQueue can place sprites before the image exists
+
+public final class SpriteAtlas {
+    public static final int ENEMY = 0;
+    public static final int PLAYER = 1;
+    public static final int BULLET_PLAYER = 2;
+    public static final int BULLET_ENEMY = 3;
+    public static final int CANDY = 4;
+    public static final int GEM = 5;
+    public static final int HOLE = 6;
+    public static final int WALL_SIDE = 7;
+    private static final int COUNT = 8;
+
+    private static final float RES = 4f; // atlas pixels per world pixel, so zoomed-in sprites stay sharp
+    private static final int PAD = 4;    // keeps smoothing from bleeding neighbours into a sub-rect
+
+    // world-space box around the anchor point
+    static final float[] boxX = new float[COUNT], boxY = new float[COUNT], boxW = new float[COUNT], boxH = new float[COUNT];
+    // where it lives in the image
+    static final int[] srcX = new int[COUNT], srcY = new int[COUNT], srcW = new int[COUNT], srcH = new int[COUNT];
+    // fill/stroke changes and draw calls the same shape cost when drawn as primitives
+    static final int[] naivePaints = new int[COUNT], naiveDraws = new int[COUNT];
+
+    private static final int atlasW, atlasH;
+
+    private static final float SIDE_SZ = 0.95f;
+    private static final float SIDE_BW = GameConfig.TILE * 0.55f * SIDE_SZ;
+    private static final float SIDE_BH = GameConfig.TILE * 0.38f * SIDE_SZ;
+    private static final float SIDE_HGT = GameConfig.TILE * 0.95f * SIDE_SZ;
+
+    static {
+        circle(ENEMY, 12f, 2, 3);
+        circle(PLAYER, 13f, 2, 3);
+        circle(BULLET_PLAYER, 3.6f, 1, 1);
+        circle(BULLET_ENEMY, 3.6f, 1, 1);
+        circle(CANDY, 6f, 1, 1);
+        circle(GEM, 7f, 1, 1);
+        circle(HOLE, 16f, 2, 2);
+        define(WALL_SIDE, -SIDE_BW/2, -SIDE_BH/2 - SIDE_HGT, SIDE_BW, SIDE_BH + SIDE_HGT, 2, 2);
+
+        // one row, left to right
+        int x = PAD, h = 0;
+        for (int i = 0; i < COUNT; i++) {
+            srcX[i] = x;
+            srcY[i] = PAD;
+            srcW[i] = (int)Math.ceil(boxW[i] * RES);
+            srcH[i] = (int)Math.ceil(boxH[i] * RES);
+            x += srcW[i] + PAD;
+            h = Math.max(h, srcH[i]);
+        }
+        atlasW = x;
+        atlasH = h + PAD*2;
+    }
+
+    private static void circle(int id, float r, int paints, int draws) {
+        define(id, -r, -r, r*2, r*2, paints, draws);
+    }
+
+    private static void define(int id, float x, float y, float w, float h, int paints, int draws) {
+        boxX[id] = x; boxY[id] = y; boxW[id] = w; boxH[id] = h;
+        naivePaints[id] = paints;
+        naiveDraws[id] = draws;
+    }
+
+    private WritableImage image;
+
+    // rasterized on first use, has to happen on the FX thread
+    public Image image() {
+        if (image == null) image = rasterize();
+        return image;
+    }
+
+    private static WritableImage rasterize() {
+        Canvas canvas = new Canvas(atlasW, atlasH);
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        for (int i = 0; i < COUNT; i++) {
+            g.save();
+            g.translate(srcX[i] - boxX[i]*RES, srcY[i] - boxY[i]*RES);
+            g.scale(RES, RES);
+            paint(g, i);
+            g.restore();
+        }
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        return canvas.snapshot(params, new WritableImage(atlasW, atlasH));
+    }
+
+    // same shapes WorldRenderer used to draw per frame, in world units around (0,0)
+    private static void paint(GraphicsContext g, int id) {
+        switch (id) {
+            case ENEMY: {
+                double rr = 12;
+                g.setFill(Palette.ENEMY);
+                g.fillOval(-rr, -rr, rr*2, rr*2);
+                g.setFill(Palette.ENEMY_EYE);
+                g.fillOval(-rr*0.35, -rr*0.15, rr*0.35, rr*0.35);
+                g.fillOval(rr*0.05, -rr*0.15, rr*0.35, rr*0.35);
+                break;
+            }
+            case PLAYER: {
+                double pr = 13;
+                g.setFill(Palette.PLAYER);
+                g.fillOval(-pr, -pr, pr*2, pr*2);
+                g.setFill(Palette.PLAYER_EYE);
+                g.fillOval(-pr*0.35, -pr*0.15, pr*0.25, pr*0.25);
+                g.fillOval(pr*0.10, -pr*0.15, pr*0.25, pr*0.25);
+                break;
+            }
+            case BULLET_PLAYER:
+            case BULLET_ENEMY: {
+                double rr = 3.6;
+                g.setFill(id == BULLET_PLAYER ? Palette.BULLET_PLAYER : Palette.BULLET_ENEMY);
+                g.fillOval(-rr, -rr, rr*2, rr*2);
+                break;
+            }
+            case CANDY:
+            case GEM: {
+                double rr = id == CANDY ? 6 : 7;
+                g.setFill(id == CANDY ? Palette.CANDY : Palette.GEM);
+                g.fillOval(-rr, -rr, rr*2, rr*2);
+                break;
+            }
+            case HOLE: {
+                double rr = 10;
+                g.setLineWidth(1);
+                g.setStroke(Palette.HOLE_INNER);
+                g.strokeOval(-rr, -rr, rr*2, rr*2);
+                g.setStroke(Palette.HOLE_OUTER);
+                g.strokeOval(-rr*1.5, -rr*1.5, rr*3, rr*3);
+                break;
+            }
+            case WALL_SIDE: {
+                g.setFill(Palette.WALL_SIDE_TOP);
+                g.fillRoundRect(-SIDE_BW/2, -SIDE_BH/2 - SIDE_HGT, SIDE_BW, SIDE_BH, 6, 6);
+                g.setFill(Palette.WALL_SIDE_FRONT);
+                g.fillRoundRect(-SIDE_BW/2, -SIDE_BH/2, SIDE_BW, SIDE_BH, 6, 6);
+                break;
+            }
+            default:
+                break;
+        }
+    }
+}
@@ -1,9 +1,6 @@
 package lostinbabuland;
 
-import java.util.HashSet;
-import java.util.Set;
-
-public final class StatsTracker {
+public final class StatsTracker implements GameEventBus.Handler {
     private float timeSec = 0f;
 
     // REAL render fps FINALLLLLLY
@@ -39,7 +36,10 @@ public final class StatsTracker {
     private float reactionSum = 0f;
     private int reactionN = 0;
 
-    private final Set<Integer> visited = new HashSet<>();
+    // current world's tiles, and the one that just ended (swapped, not copied) so it can be exported
+    private TileHeatmap tiles = new TileHeatmap();
+    private TileHeatmap lastRun = new TileHeatmap();
+    private int runs = 0;
 
     public void renderFrame(float frameDt) {
         if (frameDt <= 1e-6f) return;
@@ -50,7 +50,7 @@ public final class StatsTracker {
         memPeakMB = Math.max(memPeakMB, mem);
     }
 
-    public void simStep(float dt, float playerSpeedNow, boolean inThreat, int tileKey, int approxWalkable) {
+    public void simStep(float dt, float playerSpeedNow, boolean inThreat, int tileKey) {
         timeSec += dt;
 
         if (playerSpeedNow < 8f) idleTime += dt;
@@ -64,7 +64,7 @@ public final class StatsTracker {
             threatened = false;
         }
 
-        visited.add(tileKey);
+        tiles.visit(tileKey, dt);
 
         actionWindow += dt;
         if (actionWindow > 60f) {
@@ -73,6 +73,41 @@ public final class StatsTracker {
         }
     }
 
+    // fed by the sim's event bus at the end of every tick, same order things happened in
+    @Override
+    public void onEvent(int type, int a, int b, float x, float y) {
+        switch (type) {
+            case GameEventBus.STEP: simStep(x, y, (b & GameEventBus.THREAT) != 0, a); break;
+            case GameEventBus.PLAYER_MOVED: addDistance(x); break;
+            case GameEventBus.BUMP: bump(); break;
+            case GameEventBus.PLAYER_SHOT: playerShot(a); break;
+            case GameEventBus.ENEMY_SHOT: enemyShot(); break;
+            case GameEventBus.ENEMIES_MOVED: enemyMoveDistance(x); break;
+            case GameEventBus.HIT_ENEMY: playerHitEnemy(); addScore(a); break;
+            case GameEventBus.PLAYER_HIT: playerGotHit(a); break;
+            case GameEventBus.PLAYER_DIED: playerDied(a); break;
+            case GameEventBus.CANDY: collectedCandy(); break;
+            case GameEventBus.GEM: collectedGem(); break;
+            case GameEventBus.SWITCH_VIEW: switchedView(); break;
+            case GameEventBus.ROTATE: rotated(); break;
+            case GameEventBus.NEW_WORLD: newWorld(a, b); break;
+            default: break;
+        }
+    }
+
+    // new world: the finished run's heatmap moves to lastRun(). exploration is per world from here on
+    public void newWorld(int w, int h) {
+        TileHeatmap t = lastRun;
+        lastRun = tiles;
+        tiles = t;
+        tiles.reset(w, h);
+        runs++;
+    }
+
+    public TileHeatmap tiles() { return tiles; }
+    public TileHeatmap lastRun() { return lastRun; }
+    public int runs() { return runs; }
+
     public float t() { return timeSec; }
     public float fps() { return renderFpsSmooth; }
     public float memMB() { return (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / (1024f*1024f); }
@@ -81,10 +116,11 @@ public final class StatsTracker {
     public void addScore(int v) { score += v; }
     public int score() { return score; }
 
-    public void playerShot() { playerShots++; actionsInWindow++; }
+    public void playerShot(int tile) { playerShots++; actionsInWindow++; tiles.shot(tile); }
     public void playerHitEnemy() { playerHits++; actionsInWindow++; if (threatened) react(); }
     public void enemyShot() { enemyShots++; }
-    public void playerGotHit() { enemyHits++; actionsInWindow++; }
+    public void playerGotHit(int tile) { enemyHits++; actionsInWindow++; tiles.hit(tile); }
+    public void playerDied(int tile) { tiles.death(tile); }
 
     public void collectedCandy() { candies++; score += 5; actionsInWindow++; if (threatened) react(); }
     public void collectedGem() { gems++; score += 20; actionsInWindow++; if (threatened) react(); }
@@ -118,7 +154,7 @@ public final class StatsTracker {
 
     public float explorePct(int approxWalkable) {
         if (approxWalkable <= 0) return 0f;
-        return Math.min(1f, visited.size() / (float)approxWalkable);
+        return Math.min(1f, tiles.visitedCount() / (float)approxWalkable);
     }
 
     public float reactionAvg() { return reactionN == 0 ? 0f : reactionSum / reactionN; }
@@ -0,0 +1,216 @@
+package lostinbabuland;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// one fixed-size sample per rendered frame (frame time, sim tick + steps this frame, enemies, bullets, heap, view,
+// rotation) into preallocated primitive arrays used as a ring, so the last CAPACITY frames of a session keep their shape
+// single producer: the FX thread writes a slot then publishes the count. dump() only notes which samples the current
+// run covers and unparks the writer thread, which copies them into a file; slots the producer lapped while it was
+// copying get dropped. only the newest maxFiles dumps in the directory are kept
+// nothing on the frame path allocates
+// usage (file to csv): TelemetryRecorder <telemetry.bin> [out.csv]
+
+public final class TelemetryRecorder {
+    public static final int MAGIC = 0x42544c31; // "BTL1"
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 24;   // magic, version, record size, count, start nanos
+    public static final int SIZE = 32;
+
+    private final int capacity;
+    private final int mask;
+
+    private final long[] t;       // nanos since the recorder started
+    private final int[] frameUs;
+    private final int[] tick;
+    private final byte[] steps;
+    private final byte[] view;
+    private final short[] rot;
+    private final int[] enemies;
+    private final int[] bullets;
+    private final int[] heapKb;
+
+    private final long startNanos = System.nanoTime();
+    private final Runtime rt = Runtime.getRuntime();
+
+    private volatile long written = 0;   // samples ever recorded, slot = n & mask
+    private volatile long dumpSeq = 0;   // bumped by dump(), the writer remembers the last one it served
+    private volatile long runStart = 0;  // first sample of the current run
+    private volatile long dumpFrom, dumpTo;
+    private volatile boolean closed = false;
+
+    private final Path dir;
+    private final long seed;
+    private final int maxFiles;
+    private final Thread writer;
+    private volatile int dumps, lostSamples;
+    private volatile IOException lastError;
+
+    // capacity is rounded up to a power of two
+    public TelemetryRecorder(int capacity, Path dir, long seed, int maxFiles) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = this.capacity - 1;
+        this.dir = dir;
+        this.seed = seed;
+        this.maxFiles = Math.max(1, maxFiles);
+        t = new long[this.capacity];
+        frameUs = new int[this.capacity];
+        tick = new int[this.capacity];
+        steps = new byte[this.capacity];
+        view = new byte[this.capacity];
+        rot = new short[this.capacity];
+        enemies = new int[this.capacity];
+        bullets = new int[this.capacity];
+        heapKb = new int[this.capacity];
+
+        writer = new Thread(this::run, "telemetry-dump");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public int capacity() { return capacity; }
+    public long written() { return written; }
+    public int dumps() { return dumps; }
+    public int lostSamples() { return lostSamples; }
+    public IOException lastError() { return lastError; }
+
+    // FX thread only
+    public void record(long frameNanos, int stepsThisFrame, GameSimulation sim) {
+        long n = written;
+        int i = (int)(n & mask);
+        t[i] = System.nanoTime() - startNanos;
+        frameUs[i] = (int)Math.min(Integer.MAX_VALUE, frameNanos / 1000);
+        tick[i] = (int)sim.ticks();
+        steps[i] = (byte)Math.min(127, stepsThisFrame);
+        view[i] = (byte)sim.view().ordinal();
+        rot[i] = (short)sim.rotDeg();
+        enemies[i] = sim.enemies().size();
+        bullets[i] = sim.projectiles().size();
+        heapKb[i] = (int)((rt.totalMemory() - rt.freeMemory()) >> 10);
+        written = n + 1; // publish after the slot is filled
+    }
+
+    // FX thread. samples from here on belong to a new run
+    public void newRun() {
+        runStart = written;
+    }
+
+    // cheap enough for the frame: a few volatile stores and an unpark. dumps the current run so far (or its last
+    // capacity() samples); requests that pile up while a dump runs merge into the newest one
+    public void dump() {
+        dumpFrom = runStart;
+        dumpTo = written;
+        dumpSeq++;
+        LockSupport.unpark(writer);
+    }
+
+    // finishes a requested dump, then stops the writer
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        long served = 0;
+        ByteBuffer buf = null;
+        while (true) {
+            long want = dumpSeq;
+            if (want != served) {
+                served = want;
+                if (buf == null) buf = ByteBuffer.allocate(HEADER_SIZE + capacity * SIZE);
+                try {
+                    writeDump(buf, dumpFrom, dumpTo, dir.resolve("telemetry-" + seed + "-" + dumps + ".bin"));
+                    dumps++;
+                    prune();
+                } catch (IOException e) {
+                    lastError = e;
+                }
+                continue;
+            }
+            if (closed) return;
+            LockSupport.park(this);
+        }
+    }
+
+    private void writeDump(ByteBuffer buf, long from, long end, Path file) throws IOException {
+        long first = Math.max(from, end - capacity);
+
+        buf.clear();
+        buf.position(HEADER_SIZE);
+        for (long n = first; n < end; n++) {
+            int i = (int)(n & mask);
+            buf.putLong(t[i]).putInt(frameUs[i]).putInt(tick[i]).put(steps[i]).put(view[i]).putShort(rot[i])
+                    .putInt(enemies[i]).putInt(bullets[i]).putInt(heapKb[i]);
+        }
+
+        // anything the producer wrote over while we were copying is torn, cut it off the front
+        // (+1: the slot for the next sample may be half written right now)
+        long lapped = Math.min(end, Math.max(first, written - capacity + 1));
+        int skip = (int)(lapped - first);
+        if (skip > 0) lostSamples += skip;
+        int count = (int)(end - lapped);
+
+        // header goes right in front of the first kept record
+        int h = skip * SIZE;
+        buf.putInt(h, MAGIC).putShort(h + 4, VERSION).putShort(h + 6, (short)SIZE).putInt(h + 8, count)
+                .putLong(h + 12, startNanos).putInt(h + 20, 0);
+        buf.limit(buf.position()).position(h);
+
+        Files.createDirectories(file.getParent());
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) ch.write(buf);
+        }
+    }
+
+    // oldest dumps go first once there are more than maxFiles, whichever session wrote them
+    private void prune() throws IOException {
+        List<Path> files;
+        try (Stream<Path> s = Files.list(dir)) {
+            files = s.filter(f -> f.getFileName().toString().startsWith("telemetry-") && f.getFileName().toString().endsWith(".bin"))
+                    .collect(Collectors.toList());
+        }
+        if (files.size() <= maxFiles) return;
+        files.sort(Comparator.comparingLong(f -> f.toFile().lastModified()));
+        for (int i = 0; i < files.size() - maxFiles; i++) Files.deleteIfExists(files.get(i));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: TelemetryRecorder <telemetry.bin> [out.csv]");
+            return;
+        }
+        ByteBuffer b = ByteBuffer.wrap(Files.readAllBytes(Paths.get(args[0])));
+        if (b.remaining() < HEADER_SIZE || b.getInt(0) != MAGIC || b.getShort(4) != VERSION || b.getShort(6) != SIZE) {
+            throw new IOException(args[0] + ": not a telemetry dump");
+        }
+        int count = Math.min(b.getInt(8), (b.remaining() - HEADER_SIZE) / SIZE);
+
+        try (Writer w = args.length > 1 ? Files.newBufferedWriter(Paths.get(args[1])) : new PrintWriter(System.out)) {
+            w.write("t_ms,frame_ms,tick,steps,view,rot,enemies,bullets,heap_mb\n");
+            ViewMode[] views = ViewMode.values();
+            for (int k = 0, at = HEADER_SIZE; k < count; k++, at += SIZE) {
+                w.write(String.format(Locale.US, "%.3f,%.3f,%d,%d,%s,%d,%d,%d,%.1f%n",
+                        b.getLong(at) / 1e6, b.getInt(at + 8) / 1e3, b.getInt(at + 12), b.get(at + 16),
+                        views[b.get(at + 17)], b.getShort(at + 18), b.getInt(at + 20), b.getInt(at + 24), b.getInt(at + 28) / 1024.0));
+            }
+        }
+    }
+}
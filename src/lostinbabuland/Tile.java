@@ -7,6 +7,8 @@ public enum Tile {
 
     public final boolean solid;
 
+    static final Tile[] VALUES = values();
+
     Tile(boolean solid) {
         this.solid = solid;
     }
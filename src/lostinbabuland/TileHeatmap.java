@@ -0,0 +1,86 @@
+package lostinbabuland;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+// per-tile counters for one run, indexed y*w + x like everything else. visited is a bitset,
+// the rest are plain arrays that get refilled (not reallocated) when the next world has the same size
+
+public final class TileHeatmap {
+    private int w, h;
+    private long[] visited = new long[0];
+    private int visitedCount;
+
+    private float[] dwell = new float[0]; // seconds the player stood on the tile
+    private int[] hits = new int[0];      // bullets taken while on it
+    private int[] shots = new int[0];     // bullets fired from it
+    private int[] deaths = new int[0];
+
+    public void reset(int w, int h) {
+        this.w = w;
+        this.h = h;
+        int n = w*h;
+        if (dwell.length != n) {
+            visited = new long[(n + 63) >>> 6];
+            dwell = new float[n];
+            hits = new int[n];
+            shots = new int[n];
+            deaths = new int[n];
+        } else {
+            Arrays.fill(visited, 0L);
+            Arrays.fill(dwell, 0f);
+            Arrays.fill(hits, 0);
+            Arrays.fill(shots, 0);
+            Arrays.fill(deaths, 0);
+        }
+        visitedCount = 0;
+    }
+
+    public int width() { return w; }
+    public int height() { return h; }
+    public int visitedCount() { return visitedCount; }
+
+    // out-of-range tiles are ignored, callers pass whatever the player position maps to
+    public void visit(int tile, float dt) {
+        if (tile < 0 || tile >= dwell.length) return;
+        long bit = 1L << tile;
+        int word = tile >>> 6;
+        if ((visited[word] & bit) == 0) {
+            visited[word] |= bit;
+            visitedCount++;
+        }
+        dwell[tile] += dt;
+    }
+
+    public void hit(int tile) { if (tile >= 0 && tile < hits.length) hits[tile]++; }
+    public void shot(int tile) { if (tile >= 0 && tile < shots.length) shots[tile]++; }
+    public void death(int tile) { if (tile >= 0 && tile < deaths.length) deaths[tile]++; }
+
+    public boolean visited(int tile) { return (visited[tile >>> 6] & (1L << tile)) != 0; }
+    public float dwell(int tile) { return dwell[tile]; }
+    public int hits(int tile) { return hits[tile]; }
+    public int shots(int tile) { return shots[tile]; }
+    public int deaths(int tile) { return deaths[tile]; }
+
+    // one row per tile that saw anything: x,y,dwell_sec,hits,shots,deaths
+    public void exportCsv(Path file) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("x,y,dwell_sec,hits,shots,deaths\n");
+            for (int word = 0; word < visited.length; word++) {
+                long bits = visited[word];
+                while (bits != 0) {
+                    int tile = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    out.write(String.format(Locale.US, "%d,%d,%.3f,%d,%d,%d\n",
+                            tile % w, tile / w, dwell[tile], hits[tile], shots[tile], deaths[tile]));
+                }
+            }
+            // hits/shots/deaths only happen on tiles we stood on, so walking the visited bits covers everything
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package lostinbabuland;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// walls never move during a run, so draw them once per (view, rotation, viewport) into an image and just blit it
+// keeps the last few rotations around so spamming Q/E doesn't re-render every time
+
+public final class WallLayerCache {
+    private static final int MAX_LAYERS = 4;
+
+    private final Map<Long, WritableImage> layers = new LinkedHashMap<>(8, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<Long, WritableImage> eldest) {
+            return size() > MAX_LAYERS;
+        }
+    };
+
+    private final Canvas scratch = new Canvas();
+    private final RenderQueue queue = new RenderQueue();
+    private final SpriteAtlas atlas;
+    private final SnapshotParameters params = new SnapshotParameters();
+    private World world;
+
+    public WallLayerCache(SpriteAtlas atlas) {
+        this.atlas = atlas;
+        params.setFill(Color.TRANSPARENT);
+    }
+
+    public WritableImage layer(World world, ViewMode view, int rotDeg, double viewW, double viewH, Camera.Projector proj, Camera cam) {
+        if (world != this.world) {
+            layers.clear();
+            this.world = world;
+        }
+
+        int iw = Math.max(1, (int)Math.ceil(viewW));
+        int ih = Math.max(1, (int)Math.ceil(viewH));
+        long key = ((long)view.ordinal() << 60) | ((long)rotDeg << 48) | ((long)iw << 24) | ih;
+
+        WritableImage img = layers.get(key);
+        if (img == null) {
+            scratch.setWidth(iw);
+            scratch.setHeight(ih);
+            GraphicsContext g = scratch.getGraphicsContext2D();
+            g.clearRect(0, 0, iw, ih);
+            queue.beginFrame();
+            draw(queue, world, view, proj, cam, 0, 0, 0, 0, world.w - 1, world.h - 1);
+            queue.flush(g, atlas);
+            img = scratch.snapshot(params, new WritableImage(iw, ih));
+            layers.put(key, img);
+        }
+        return img;
+    }
+
+    // the static part of the frame: SIDE grid lines and every wall tile in [minTx..maxTx] x [minTy..maxTy]
+    // the follow camera calls this directly with just the visible range instead of going through the cache
+    static void draw(RenderQueue q, World world, ViewMode view, Camera.Projector proj, Camera cam, double vx0, double vy0,
+                     int minTx, int minTy, int maxTx, int maxTy) {
+        if (view == ViewMode.SIDE) {
+            float wx0 = minTx * GameConfig.TILE, wx1 = (maxTx + 1) * GameConfig.TILE;
+            float wy0 = minTy * GameConfig.TILE, wy1 = (maxTy + 1) * GameConfig.TILE;
+
+            for (int ty = minTy; ty <= maxTy + 1; ty++) {
+                float wy = ty * GameConfig.TILE;
+                q.strokeLine(RenderQueue.L_GRID, Palette.GRID,
+                        vx0 + cam.sx(proj.projectX(wx0, wy)), vy0 + cam.sy(proj.projectY(wx0, wy)),
+                        vx0 + cam.sx(proj.projectX(wx1, wy)), vy0 + cam.sy(proj.projectY(wx1, wy)));
+            }
+            for (int tx = minTx; tx <= maxTx + 1; tx++) {
+                float wx = tx * GameConfig.TILE;
+                q.strokeLine(RenderQueue.L_GRID, Palette.GRID,
+                        vx0 + cam.sx(proj.projectX(wx, wy0)), vy0 + cam.sy(proj.projectY(wx, wy0)),
+                        vx0 + cam.sx(proj.projectX(wx, wy1)), vy0 + cam.sy(proj.projectY(wx, wy1)));
+            }
+        }
+
+        double sz = cam.scale * 0.95;
+        for (int y = minTy; y <= maxTy; y++) {
+            for (int x = world.nextSolidInRow(y, minTx); x <= maxTx; x = world.nextSolidInRow(y, x + 1)) {
+                float cx = x * GameConfig.TILE + GameConfig.TILE*0.5f, cy = y * GameConfig.TILE + GameConfig.TILE*0.5f;
+
+                double sx = vx0 + cam.sx(proj.projectX(cx, cy));
+                double sy = vy0 + cam.sy(proj.projectY(cx, cy));
+
+                if (view == ViewMode.TOP) {
+                    q.fillRect(RenderQueue.L_WALLS, Palette.WALL_TOP,
+                            sx - GameConfig.TILE*0.5*sz, sy - GameConfig.TILE*0.5*sz, GameConfig.TILE*sz, GameConfig.TILE*sz);
+                } else {
+                    q.sprite(RenderQueue.L_WALLS, SpriteAtlas.WALL_SIDE, sx, sy, cam.scale);
+                }
+            }
+        }
+    }
+}
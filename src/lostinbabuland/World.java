@@ -2,25 +2,42 @@
 package lostinbabuland;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
 public final class World {
     public final int w, h;
-    private final Tile[][] tiles;
+
+    // row-major solid bitmask, bit (x & 63) of word y*wordsPerRow + (x >> 6). padding bits past w read as solid
+    private final int wordsPerRow;
+    private final long[] solid;
+    // only allocated once a tile kind shows up that the solid bit alone can't describe
+    private byte[] types;
     public final Random rng;
+    public final PathContext paths;
 
     public float startX, startY;
     public float exitX, exitY;
 
+    // connected floor regions, built once after generation. -1 for solid tiles
+    private int[] component;
+    private int[][] componentTiles;
+
     public final List<Pickup> pickups = new ArrayList<>();
     public final List<Hole> holes = new ArrayList<>();
 
     public World(long seed) {
-        this.w = GameConfig.WORLD_W;
-        this.h = GameConfig.WORLD_H;
-        this.tiles = new Tile[w][h];
+        this(seed, GameConfig.WORLD_W, GameConfig.WORLD_H);
+    }
+
+    public World(long seed, int w, int h) {
+        this.w = w;
+        this.h = h;
+        this.wordsPerRow = (w + 63) >>> 6;
+        this.solid = new long[wordsPerRow * h];
         this.rng = new Random(seed);
+        this.paths = new PathContext(w*h);
         generate();
     }
 
@@ -30,11 +47,52 @@ public final class World {
 
     public Tile tile(int tx, int ty) {
         if (!inBounds(tx, ty)) return Tile.WALL;
-        return tiles[tx][ty];
+        if (types != null) return Tile.VALUES[types[ty*w + tx]];
+        return isSolid(tx, ty) ? Tile.WALL : Tile.FLOOR;
     }
 
     public boolean isSolid(int tx, int ty) {
-        return tile(tx, ty).solid;
+        if (!inBounds(tx, ty)) return true;
+        return ((solid[ty*wordsPerRow + (tx >>> 6)] >>> tx) & 1L) != 0;
+    }
+
+    private void setTile(int tx, int ty, Tile t) {
+        int word = ty*wordsPerRow + (tx >>> 6);
+        if (t.solid) solid[word] |= 1L << tx;
+        else solid[word] &= ~(1L << tx);
+
+        if (types == null && t != Tile.WALL && t != Tile.FLOOR) {
+            types = new byte[w*h];
+            for (int y = 0; y < h; y++) for (int x = 0; x < w; x++) types[y*w + x] = (byte)(isSolid(x, y) ? Tile.WALL : Tile.FLOOR).ordinal();
+        }
+        if (types != null) types[ty*w + tx] = (byte)t.ordinal();
+    }
+
+    // word-at-a-time row access, 64 tiles per long
+    public int wordsPerRow() { return wordsPerRow; }
+
+    public long solidWord(int ty, int word) {
+        if (ty < 0 || ty >= h || word < 0 || word >= wordsPerRow) return -1L;
+        return solid[ty*wordsPerRow + word];
+    }
+
+    public int solidCountInRow(int ty) {
+        int n = 0;
+        for (int i = 0; i < wordsPerRow; i++) n += Long.bitCount(solid[ty*wordsPerRow + i]);
+        return n - (wordsPerRow*64 - w); // padding bits are always set
+    }
+
+    // first solid x >= fromX on this row (w when the rest of the row is open)
+    public int nextSolidInRow(int ty, int fromX) {
+        if (fromX >= w) return w;
+        fromX = Math.max(0, fromX);
+        int word = fromX >>> 6;
+        long bits = solid[ty*wordsPerRow + word] & (-1L << fromX);
+        while (bits == 0) {
+            if (++word == wordsPerRow) return w;
+            bits = solid[ty*wordsPerRow + word];
+        }
+        return Math.min(w, (word << 6) + Long.numberOfTrailingZeros(bits));
     }
 
     public float tileCenterX(int tx) { return tx * GameConfig.TILE + GameConfig.TILE * 0.5f; }
@@ -48,12 +106,84 @@ public final class World {
         return inBounds(tx, ty) && !isSolid(tx, ty);
     }
 
+    public int componentOf(int tx, int ty) {
+        if (!inBounds(tx, ty)) return -1;
+        return component[ty*w + tx];
+    }
+
+    public boolean reachable(int ax, int ay, int bx, int by) {
+        int ca = componentOf(ax, ay);
+        return ca >= 0 && ca == componentOf(bx, by);
+    }
+
+    public int componentSize(int label) {
+        return label < 0 ? 0 : componentTiles[label].length;
+    }
+
+    // random floor tile reachable from (tx,ty) and at least minManhattan away, packed y*w + x. -1 if none
+    public int randomReachableTile(int tx, int ty, int minManhattan, Random rnd) {
+        int label = componentOf(tx, ty);
+        if (label < 0) return -1;
+        int[] cells = componentTiles[label];
+        int n = cells.length;
+
+        // a few straight samples almost always hit, then sweep from a random spot so we never fail when one exists
+        for (int i = 0; i < 4; i++) {
+            int c = cells[rnd.nextInt(n)];
+            if (Math.abs(c % w - tx) + Math.abs(c / w - ty) >= minManhattan) return c;
+        }
+        int from = rnd.nextInt(n);
+        for (int i = 0; i < n; i++) {
+            int c = cells[(from + i) % n];
+            if (Math.abs(c % w - tx) + Math.abs(c / w - ty) >= minManhattan) return c;
+        }
+        return -1;
+    }
+
+    private void buildComponents() {
+        component = new int[w*h];
+        Arrays.fill(component, -1);
+
+        int[] queue = new int[w*h];
+        List<int[]> regions = new ArrayList<>();
+
+        for (int start = 0; start < w*h; start++) {
+            if (component[start] >= 0 || isSolid(start % w, start / w)) continue;
+
+            int label = regions.size();
+            int head = 0, tail = 0;
+            queue[tail++] = start;
+            component[start] = label;
+
+            while (head < tail) {
+                int idx = queue[head++];
+                int x = idx % w, y = idx / w;
+                if (x+1 < w  && component[idx+1] < 0 && !isSolid(x+1, y)) { component[idx+1] = label; queue[tail++] = idx+1; }
+                if (x-1 >= 0 && component[idx-1] < 0 && !isSolid(x-1, y)) { component[idx-1] = label; queue[tail++] = idx-1; }
+                if (y+1 < h  && component[idx+w] < 0 && !isSolid(x, y+1)) { component[idx+w] = label; queue[tail++] = idx+w; }
+                if (y-1 >= 0 && component[idx-w] < 0 && !isSolid(x, y-1)) { component[idx-w] = label; queue[tail++] = idx-w; }
+            }
+            // queue[0..tail) is exactly this region
+            regions.add(Arrays.copyOf(queue, tail));
+        }
+        componentTiles = regions.toArray(new int[0][]);
+    }
+
     private void generate() {
-        for (int y = 0; y < h; y++) for (int x = 0; x < w; x++) tiles[x][y] = Tile.FLOOR;
+        // phase timings only when someone is recording WorldGen
+        JfrEvents.WorldGen ev = JfrEvents.WORLD_GEN.isEnabled() ? new JfrEvents.WorldGen() : null;
+        if (ev != null) ev.begin();
+        long t = ev != null ? System.nanoTime() : 0L;
+
+        Arrays.fill(solid, 0L);
+        if ((w & 63) != 0) {
+            long pad = -1L << (w & 63);
+            for (int y = 0; y < h; y++) solid[y*wordsPerRow + wordsPerRow - 1] = pad;
+        }
 
         // border walls
-        for (int x = 0; x < w; x++) { tiles[x][0] = Tile.WALL; tiles[x][h-1] = Tile.WALL; }
-        for (int y = 0; y < h; y++) { tiles[0][y] = Tile.WALL; tiles[w-1][y] = Tile.WALL; }
+        for (int x = 0; x < w; x++) { setTile(x, 0, Tile.WALL); setTile(x, h-1, Tile.WALL); }
+        for (int y = 0; y < h; y++) { setTile(0, y, Tile.WALL); setTile(w-1, y, Tile.WALL); }
 
         // random wall clusters
         int clusters = 58;
@@ -64,24 +194,34 @@ public final class World {
             int rh = 1 + rng.nextInt(4);
             for (int y = cy; y < cy+rh && y < h-1; y++) {
                 for (int x = cx; x < cx+rw && x < w-1; x++) {
-                    if (rng.nextFloat() < 0.85f) tiles[x][y] = Tile.WALL;
+                    if (rng.nextFloat() < 0.85f) setTile(x, y, Tile.WALL);
                 }
             }
         }
 
+        if (ev != null) { long now = System.nanoTime(); ev.wallsNanos = now - t; t = now; }
+
         // carve a few corridors so it doesn't lock up
         for (int i = 0; i < 6; i++) {
             int y = 3 + rng.nextInt(h-6);
-            for (int x = 2; x < w-2; x++) if (rng.nextFloat() < 0.55f) tiles[x][y] = Tile.FLOOR;
+            for (int x = 2; x < w-2; x++) if (rng.nextFloat() < 0.55f) setTile(x, y, Tile.FLOOR);
         }
         for (int i = 0; i < 4; i++) {
             int x = 3 + rng.nextInt(w-6);
-            for (int y = 2; y < h-2; y++) if (rng.nextFloat() < 0.55f) tiles[x][y] = Tile.FLOOR;
+            for (int y = 2; y < h-2; y++) if (rng.nextFloat() < 0.55f) setTile(x, y, Tile.FLOOR);
         }
 
+        if (ev != null) { long now = System.nanoTime(); ev.corridorsNanos = now - t; t = now; }
+
+        buildComponents();
+
+        if (ev != null) { long now = System.nanoTime(); ev.componentsNanos = now - t; t = now; }
+
         // choose start/exit far apart (retry a few times)
         int sx=2, sy=2, ex=w-3, ey=h-3;
-        for (int tries = 0; tries < 200; tries++) {
+        int tries = 0;
+        boolean picked = false;
+        for (; tries < 200; tries++) {
             int ax = 2 + rng.nextInt(w-4);
             int ay = 2 + rng.nextInt(h-4);
             int bx = 2 + rng.nextInt(w-4);
@@ -90,10 +230,11 @@ public final class World {
             int man = Math.abs(ax-bx) + Math.abs(ay-by);
             if (man < (w+h)/2) continue;
             // ensure path exists
-            var path = Pathfinder.bfsNextSteps(this, ax, ay, bx, by, 20000);
-            if (!path.isEmpty()) { sx=ax; sy=ay; ex=bx; ey=by; break; }
+            if (reachable(ax, ay, bx, by)) { sx=ax; sy=ay; ex=bx; ey=by; picked = true; break; }
         }
 
+        if (ev != null) { long now = System.nanoTime(); ev.startExitNanos = now - t; t = now; }
+
         startX = tileCenterX(sx);
         startY = tileCenterY(sy);
         exitX = tileCenterX(ex);
@@ -105,6 +246,17 @@ public final class World {
         placePickups(PickupType.CANDY, GameConfig.CANDY_COUNT, sx, sy, ex, ey);
         placePickups(PickupType.GEM, GameConfig.GEM_COUNT, sx, sy, ex, ey);
         placeHoles(GameConfig.HOLE_COUNT, sx, sy, ex, ey);
+
+        if (ev != null) {
+            ev.placementNanos = System.nanoTime() - t;
+            ev.end();
+            ev.width = w;
+            ev.height = h;
+            ev.retries = tries;
+            ev.fallback = !picked;
+            ev.components = componentTiles.length;
+            ev.commit();
+        }
     }
 
     //aaaaaaa so much pain
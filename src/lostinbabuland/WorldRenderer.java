@@ -0,0 +1,166 @@
+package lostinbabuland;
+
+import javafx.scene.canvas.GraphicsContext;
+
+import java.util.Arrays;
+
+// draws the playfield (everything under the HUD). every visible dynamic point goes into one packed buffer,
+// gets projected + camera'd in one pass, then turns into sprite/rect commands on the RenderQueue
+// FIT mode shows the whole map off the cached wall layer, follow mode tracks the player and culls to the viewport
+
+public final class WorldRenderer {
+    private final SpriteAtlas atlas = new SpriteAtlas();
+    private final RenderQueue queue = new RenderQueue();
+    private final WallLayerCache walls = new WallLayerCache(atlas);
+    private final Camera cam = new Camera();
+    private Projection.Table projections;
+
+    private boolean follow = GameConfig.CAMERA_FOLLOW;
+    private float zoom = GameConfig.CAMERA_ZOOM;
+
+    private float[] pts = new float[256];
+    private float[] scr = new float[256];
+    private int[] ids = new int[128]; // which hole/pickup/enemy/bullet each packed point came from
+    private int count = 0;
+
+    public RenderQueue queue() { return queue; }
+    public boolean following() { return follow; }
+    public float zoom() { return zoom; }
+
+    public void toggleFollow() { follow = !follow; }
+
+    public void zoomIn() { zoom = Math.min(GameConfig.CAMERA_ZOOM_MAX, zoom * GameConfig.CAMERA_ZOOM_STEP); }
+    public void zoomOut() { zoom = Math.max(GameConfig.CAMERA_ZOOM_MIN, zoom / GameConfig.CAMERA_ZOOM_STEP); }
+
+    // pixelScale is target pixels per window pixel (<1 on a low-res target) so the follow zoom means the same thing
+    public void draw(GraphicsContext g, GameSimulation sim, double vx0, double vy0, double viewW, double viewH, float pixelScale) {
+        World world = sim.world();
+        Player player = sim.player();
+        EnemyPool enemies = sim.enemies();
+        ProjectileSystem.View bullets = sim.projectiles().view();
+        ViewMode view = sim.view();
+        int rotDeg = sim.rotDeg();
+        boolean exitOpen = sim.exitOpen();
+
+        queue.beginFrame();
+        for (int i = 0; i < 70; i++) {
+            double sx = (i * 97) % viewW;
+            double sy = (i * 53) % viewH;
+            queue.fillRect(RenderQueue.L_BACKGROUND, Palette.STAR, vx0 + sx, vy0 + sy, 2, 2);
+        }
+
+        if (projections == null || !projections.fits(world)) projections = new Projection.Table(world);
+        Projection.Affine proj = projections.get(view, rotDeg);
+
+        if (follow) {
+            // only the visible tiles, queued with everything else; cost follows the window size, not the map size
+            cam.follow(proj, (float)viewW, (float)viewH, world, player.x, player.y, zoom * pixelScale);
+            g.save();
+            g.beginPath();
+            g.rect(vx0, vy0, viewW, viewH);
+            g.clip();
+            WallLayerCache.draw(queue, world, view, proj, cam, vx0, vy0, cam.minTx, cam.minTy, cam.maxTx, cam.maxTy);
+        } else {
+            cam.fitToView(proj, (float)viewW, (float)viewH, world);
+            queue.flush(g, atlas); // stars go under the cached layer
+            g.drawImage(walls.layer(world, view, rotDeg, viewW, viewH, proj, cam), vx0, vy0);
+        }
+
+        // pack whatever is on screen: holes, pickups, exit, enemies, bullets, player
+        count = 0;
+        int holes0 = count;
+        for (int i = 0; i < world.holes.size(); i++) {
+            Hole hole = world.holes.get(i);
+            if (cam.visible(hole.x, hole.y)) put(hole.x, hole.y, i);
+        }
+        int pickups0 = count;
+        for (int i = 0; i < world.pickups.size(); i++) {
+            Pickup pck = world.pickups.get(i);
+            if (!pck.collected && cam.visible(pck.x, pck.y)) put(pck.x, pck.y, i);
+        }
+        int exit0 = count;
+        if (cam.visible(world.exitX, world.exitY)) put(world.exitX, world.exitY, 0);
+        int enemies0 = count;
+        for (int i = 0; i < enemies.size(); i++) {
+            if (enemies.alive(i) && cam.visible(enemies.x(i), enemies.y(i))) put(enemies.x(i), enemies.y(i), i);
+        }
+        int bullets0 = count;
+        for (int i = 0; i < bullets.size(); i++) {
+            if (cam.visible(bullets.x(i), bullets.y(i))) put(bullets.x(i), bullets.y(i), i);
+        }
+        int player0 = count;
+        put(player.x, player.y, 0);
+
+        if (scr.length < pts.length) scr = new float[pts.length];
+        proj.projectBatch(pts, scr, count);
+        cam.toScreen(scr, count, (float)vx0, (float)vy0);
+
+        double s = cam.scale;
+        for (int k = holes0; k < pickups0; k++) {
+            queue.sprite(RenderQueue.L_FLOOR, SpriteAtlas.HOLE, scr[k*2], scr[k*2 + 1], s);
+        }
+        for (int k = pickups0; k < exit0; k++) {
+            int sprite = world.pickups.get(ids[k]).type == PickupType.CANDY ? SpriteAtlas.CANDY : SpriteAtlas.GEM;
+            queue.sprite(RenderQueue.L_PICKUPS, sprite, scr[k*2], scr[k*2 + 1], s);
+        }
+        if (enemies0 > exit0) {
+            double es = 18 * s;
+            queue.fillRect(RenderQueue.L_EXIT, exitOpen ? Palette.EXIT_OPEN : Palette.EXIT_LOCKED,
+                    scr[exit0*2] - es/2, scr[exit0*2 + 1] - es/2, es, es);
+        }
+        for (int k = enemies0; k < bullets0; k++) {
+            queue.sprite(RenderQueue.L_ENEMIES, SpriteAtlas.ENEMY, scr[k*2], scr[k*2 + 1], s);
+        }
+        for (int k = bullets0; k < player0; k++) {
+            int sprite = bullets.fromPlayer(ids[k]) ? SpriteAtlas.BULLET_PLAYER : SpriteAtlas.BULLET_ENEMY;
+            queue.sprite(RenderQueue.L_BULLETS, sprite, scr[k*2], scr[k*2 + 1], s);
+        }
+        queue.sprite(RenderQueue.L_PLAYER, SpriteAtlas.PLAYER, scr[player0*2], scr[player0*2 + 1], s);
+
+        queue.flush(g, atlas);
+        if (follow) g.restore();
+    }
+
+    // hash of everything draw() would put on screen with the current camera. same hash, same frame
+    // uses the camera from the last draw, which is fine: it only moves when the player does, and that changes the hash
+    public long signature(GameSimulation sim) {
+        World world = sim.world();
+        Player player = sim.player();
+        EnemyPool enemies = sim.enemies();
+        ProjectileSystem.View bullets = sim.projectiles().view();
+
+        long h = 0xcbf29ce484222325L;
+        h = GameSimulation.mix(h, System.identityHashCode(world));
+        h = GameSimulation.mix(h, sim.view().ordinal());
+        h = GameSimulation.mix(h, sim.rotDeg());
+        h = GameSimulation.mix(h, sim.exitOpen() ? 1 : 0);
+        h = GameSimulation.mix(h, follow ? Float.floatToIntBits(zoom) : 0);
+        h = GameSimulation.mix(h, Float.floatToIntBits(player.x));
+        h = GameSimulation.mix(h, Float.floatToIntBits(player.y));
+        for (int i = 0; i < world.pickups.size(); i++) {
+            if (world.pickups.get(i).collected) h = GameSimulation.mix(h, i);
+        }
+        for (int i = 0; i < enemies.size(); i++) {
+            if (!enemies.alive(i) || !cam.visible(enemies.x(i), enemies.y(i))) continue;
+            h = GameSimulation.mix(h, Float.floatToIntBits(enemies.x(i)));
+            h = GameSimulation.mix(h, Float.floatToIntBits(enemies.y(i)));
+        }
+        for (int i = 0; i < bullets.size(); i++) {
+            if (!cam.visible(bullets.x(i), bullets.y(i))) continue;
+            h = GameSimulation.mix(h, Float.floatToIntBits(bullets.x(i)));
+            h = GameSimulation.mix(h, Float.floatToIntBits(bullets.y(i)));
+        }
+        return h;
+    }
+
+    private void put(float x, float y, int id) {
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, count * 2);
+            pts = Arrays.copyOf(pts, count * 4);
+        }
+        pts[count*2] = x;
+        pts[count*2 + 1] = y;
+        ids[count] = id;
+        count++;
+    }
+}